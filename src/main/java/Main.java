@@ -1,3 +1,4 @@
+import manager.ArchiveService;
 import manager.NotificationService;
 import manager.ReminderManager;
 import webserver.SimpleHttpServer;
@@ -6,19 +7,29 @@ import java.io.IOException;
 
 public class Main {
     public static void main(String[] args) {
+        String engine = "jdk";
+        for (String arg : args) {
+            if (arg.startsWith("--engine=")) {
+                engine = arg.substring("--engine=".length()); // jdk or nio
+            }
+        }
+
         ReminderManager manager = new ReminderManager();
         NotificationService notificationService = new NotificationService(manager);
         notificationService.start();
+        ArchiveService archiveService = new ArchiveService(manager);
+        archiveService.start();
 
         try {
-            SimpleHttpServer.start();
+            SimpleHttpServer.start(manager, engine);
             
             // Add shutdown hook
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 notificationService.stop();
+                archiveService.stop();
                 SimpleHttpServer.stop();
             }));
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             System.err.println("Failed to start server: " + e.getMessage());
             System.exit(1);
         }
@@ -1,31 +1,71 @@
 package event;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import util.DateUtils;
+
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class Event {
-    private static final DateTimeFormatter DATE_FORMAT = 
+    private static final DateTimeFormatter DATE_FORMAT =
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    
+    private static final List<Integer> DEFAULT_REMINDER_OFFSETS = List.of(15);
+    public static final int MAX_REMINDER_OFFSETS = 64; // One bit each in the delivered mask
+
     private String id;
     private String title;
     private String description;
-    private LocalDateTime eventTime;
+    private Instant eventInstant; // Stored in UTC
+    private String zoneId; // Zone the time was given in; null means the server's default zone
+    private Instant endInstant; // Optional; null means the event has no duration
     private EventPriority priority;
+    @JsonProperty("recurring")
     private boolean isRecurring;
     private String category;
-    private boolean isNotified; // NEW: Flag to track if a notification has been sent
+    private boolean isNotified; // Set once every reminder has been sent
+    private List<Integer> reminderOffsets; // Minutes before the event, largest first; null means the default
+
+    private Event() {
+        // Default constructor for Jackson
+    }
+
+    public Event(String title, String description, LocalDateTime eventTime,
+                 EventPriority priority, boolean isRecurring, String category) {
+        this(title, description, eventTime.atZone(ZoneId.systemDefault()).toInstant(), null,
+             priority, isRecurring, category);
+    }
 
-    public Event(String title, String description, LocalDateTime eventTime, 
+    public Event(String title, String description, Instant eventInstant, String zoneId,
+                 EventPriority priority, boolean isRecurring, String category) {
+        this(title, description, eventInstant, null, zoneId, priority, isRecurring, category);
+    }
+
+    public Event(String title, String description, Instant eventInstant, Instant endInstant, String zoneId,
                  EventPriority priority, boolean isRecurring, String category) {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Title cannot be null or empty");
         }
+        if (zoneId != null && DateUtils.zoneOf(zoneId) == null) {
+            throw new IllegalArgumentException("Unknown zone: " + zoneId);
+        }
+        if (endInstant != null && endInstant.isBefore(eventInstant)) {
+            throw new IllegalArgumentException("End time cannot be before start time");
+        }
         this.id = generateId();
         this.title = title;
         this.description = description;
-        this.eventTime = eventTime;
+        this.eventInstant = eventInstant;
+        this.endInstant = endInstant;
+        this.zoneId = zoneId;
         this.priority = priority;
         this.isRecurring = isRecurring;
         this.category = category;
@@ -40,19 +80,73 @@ public class Event {
     public String getId() { return id; }
     public String getTitle() { return title; }
     public String getDescription() { return description; }
-    public LocalDateTime getEventTime() { return eventTime; }
+    public Instant getEventInstant() { return eventInstant; }
+    public String getZoneId() { return zoneId; }
+    public Instant getEndInstant() { return endInstant; }
     public EventPriority getPriority() { return priority; }
     public boolean isRecurring() { return isRecurring; }
     public String getCategory() { return category; }
     public boolean isNotified() { return isNotified; } // NEW: Getter for the flag
 
+    /** Minutes before the event at which reminders fire, largest first. Defaults to 15. */
+    public List<Integer> getReminderOffsets() {
+        return reminderOffsets != null ? reminderOffsets : DEFAULT_REMINDER_OFFSETS;
+    }
+
+    /** The zone the event's wall-clock time is expressed in. */
+    @JsonIgnore
+    public ZoneId getZone() {
+        ZoneId zone = DateUtils.zoneOf(zoneId);
+        return zone != null ? zone : ZoneId.systemDefault();
+    }
+
+    /** Wall-clock time of the event in its own zone. */
+    @JsonIgnore
+    public LocalDateTime getEventTime() {
+        return LocalDateTime.ofInstant(eventInstant, getZone());
+    }
+
     // Setter
     public void setNotified(boolean notified) {
         isNotified = notified;
     }
 
+    /**
+     * Sets the reminder offsets in minutes; duplicates are dropped. Must be called before the
+     * event is added to a {@code ReminderManager}, which indexes reminders by offset.
+     */
+    public void setReminderOffsets(List<Integer> offsets) {
+        if (offsets == null || offsets.isEmpty()) {
+            reminderOffsets = null;
+            return;
+        }
+        List<Integer> sorted = new ArrayList<>();
+        for (Integer offset : offsets) {
+            if (offset == null || offset < 0) {
+                throw new IllegalArgumentException("Reminder offsets must be non-negative minutes");
+            }
+            if (!sorted.contains(offset)) {
+                sorted.add(offset);
+            }
+        }
+        if (sorted.size() > MAX_REMINDER_OFFSETS) {
+            throw new IllegalArgumentException("At most " + MAX_REMINDER_OFFSETS + " reminder offsets are allowed");
+        }
+        sorted.sort(Comparator.reverseOrder());
+        reminderOffsets = List.copyOf(sorted);
+    }
+
+    // Files written before events were stored as instants hold a zone-less "eventTime".
+    @JsonProperty("eventTime")
+    private void setLegacyEventTime(LocalDateTime eventTime) {
+        if (eventInstant == null && eventTime != null) {
+            eventInstant = eventTime.atZone(ZoneId.systemDefault()).toInstant();
+        }
+    }
+
+    @JsonIgnore
     public String getFormattedTime() {
-        return eventTime.format(DATE_FORMAT);
+        return getEventTime().format(DATE_FORMAT);
     }
 
     @Override
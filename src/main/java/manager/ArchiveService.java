@@ -0,0 +1,47 @@
+package manager;
+
+import java.time.Duration;
+
+
+public class ArchiveService {
+    private static final Duration RETENTION = Duration.ofDays(1); // Past events stay live this long
+    private static final Duration ARCHIVE_PERIOD = Duration.ofHours(1);
+    private final ReminderManager manager;
+    private final Scheduler scheduler;
+    private final boolean ownsScheduler;
+    private Scheduler.Task task;
+
+    public ArchiveService(ReminderManager manager) {
+        this(manager, new TimerScheduler("event-archiver"), true);
+    }
+
+    public ArchiveService(ReminderManager manager, Scheduler scheduler) {
+        this(manager, scheduler, false);
+    }
+
+    private ArchiveService(ReminderManager manager, Scheduler scheduler, boolean ownsScheduler) {
+        this.manager = manager;
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+    }
+
+    public void start() {
+        task = scheduler.scheduleAtFixedRate(this::archivePastEvents, Duration.ZERO, ARCHIVE_PERIOD);
+    }
+
+    private void archivePastEvents() {
+        int archived = manager.archivePastEvents(scheduler.clock().instant().minus(RETENTION));
+        if (archived > 0) {
+            System.out.println("Archived " + archived + " past events");
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+        }
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -14,12 +14,11 @@ public class AuthService {
 
     public boolean signup(String username, String password) {
         if (userManager.getUserByUsername(username).isPresent()) {
-            return false; // User already exists
+            return false; // User already exists; skip the hashing
         }
         String hashedPassword = hashPassword(password);
         User newUser = new User(username, hashedPassword);
-        userManager.addUser(newUser);
-        return true;
+        return userManager.addUserIfAbsent(newUser); // Another signup may have taken the name meanwhile
     }
 
     public boolean login(String username, String password) {
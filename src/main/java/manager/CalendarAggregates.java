@@ -0,0 +1,172 @@
+package manager;
+
+import event.Event;
+import event.EventPriority;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-day, per-week and per-month event counts for the calendar views. Every change to the
+ * event set touches exactly one bucket per granularity, so updates are O(1) and a summary
+ * query never looks at individual events.
+ */
+public class CalendarAggregates {
+    private static final String UNCATEGORIZED = "Uncategorized";
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        long keyOf(LocalDate date) {
+            return switch (this) {
+                case DAY -> date.toEpochDay();
+                case WEEK -> date.with(DayOfWeek.MONDAY).toEpochDay();
+                case MONTH -> date.getYear() * 12L + date.getMonthValue() - 1;
+            };
+        }
+
+        LocalDate startOf(long key) {
+            return switch (this) {
+                case DAY, WEEK -> LocalDate.ofEpochDay(key);
+                case MONTH -> LocalDate.of((int) Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1, 1);
+            };
+        }
+
+        long step() {
+            return this == WEEK ? 7 : 1;
+        }
+    }
+
+    private final Map<Granularity, Map<Long, Bucket>> buckets = new HashMap<>();
+
+    public CalendarAggregates() {
+        for (Granularity granularity : Granularity.values()) {
+            buckets.put(granularity, new HashMap<>());
+        }
+    }
+
+    public void add(Event event) {
+        apply(event, 1, event.isNotified() ? 1 : 0);
+    }
+
+    public void remove(Event event) {
+        apply(event, -1, event.isNotified() ? -1 : 0);
+    }
+
+    /** Call once when {@code event} flips from not notified to notified. */
+    public void markNotified(Event event) {
+        apply(event, 0, 1);
+    }
+
+    /** Adds pre-counted events, as stored in the archive index. */
+    public void add(LocalDate date, EventPriority priority, String category, long total, long notified) {
+        apply(date, priority, category, total, notified);
+    }
+
+    private void apply(Event event, int total, int notified) {
+        apply(event.getEventTime().toLocalDate(), event.getPriority(), event.getCategory(), total, notified);
+    }
+
+    private void apply(LocalDate date, EventPriority priority, String eventCategory, long total, long notified) {
+        String category = eventCategory != null ? eventCategory : UNCATEGORIZED;
+        for (Map.Entry<Granularity, Map<Long, Bucket>> entry : buckets.entrySet()) {
+            long key = entry.getKey().keyOf(date);
+            Map<Long, Bucket> byKey = entry.getValue();
+            Bucket bucket = byKey.computeIfAbsent(key, k -> new Bucket());
+            bucket.total += total;
+            bucket.notified += notified;
+            if (total != 0) {
+                bucket.byPriority[priority.ordinal()] += total;
+                long[] categoryPriorities = bucket.byCategory.computeIfAbsent(category,
+                        c -> new long[EventPriority.values().length]);
+                categoryPriorities[priority.ordinal()] += total;
+                if (Arrays.stream(categoryPriorities).allMatch(n -> n == 0)) {
+                    bucket.byCategory.remove(category);
+                }
+            }
+            if (bucket.total == 0) {
+                byKey.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Non-empty periods whose start falls between the periods containing {@code from} and
+     * {@code to}, inclusive, in chronological order.
+     */
+    public List<Summary> summarize(Granularity granularity, LocalDate from, LocalDate to) {
+        Map<Long, Bucket> byKey = buckets.get(granularity);
+        long first = granularity.keyOf(from);
+        long last = granularity.keyOf(to);
+        List<Summary> summaries = new ArrayList<>();
+        if (first > last) {
+            return summaries;
+        }
+
+        // Walk whichever is smaller: the requested range or the populated buckets.
+        if ((last - first) / granularity.step() < byKey.size()) {
+            for (long key = first; key <= last; key += granularity.step()) {
+                Bucket bucket = byKey.get(key);
+                if (bucket != null) {
+                    summaries.add(bucket.toSummary(granularity.startOf(key)));
+                }
+            }
+        } else {
+            byKey.entrySet().stream()
+                    .filter(entry -> entry.getKey() >= first && entry.getKey() <= last)
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> summaries.add(entry.getValue().toSummary(granularity.startOf(entry.getKey()))));
+        }
+        return summaries;
+    }
+
+    private static final class Bucket {
+        private long total;
+        private long notified;
+        private final long[] byPriority = new long[EventPriority.values().length];
+        private final Map<String, long[]> byCategory = new HashMap<>(); // Counts per priority
+
+        private Summary toSummary(LocalDate start) {
+            Map<String, Long> categories = new HashMap<>();
+            Map<String, Map<String, Long>> categoryPriorities = new HashMap<>();
+            for (Map.Entry<String, long[]> entry : byCategory.entrySet()) {
+                categories.put(entry.getKey(), Arrays.stream(entry.getValue()).sum());
+                categoryPriorities.put(entry.getKey(), byName(entry.getValue()));
+            }
+            return new Summary(start.toString(), total, notified, byName(byPriority), categories, categoryPriorities);
+        }
+
+        private static Map<String, Long> byName(long[] counts) {
+            Map<String, Long> priorities = new LinkedHashMap<>();
+            for (EventPriority priority : EventPriority.values()) {
+                priorities.put(priority.name(), counts[priority.ordinal()]);
+            }
+            return priorities;
+        }
+    }
+
+    public static class Summary {
+        public String start;
+        public long total;
+        public long notified;
+        public Map<String, Long> byPriority;
+        public Map<String, Long> byCategory;
+        public Map<String, Map<String, Long>> byCategoryAndPriority;
+
+        public Summary(String start, long total, long notified, Map<String, Long> byPriority,
+                       Map<String, Long> byCategory, Map<String, Map<String, Long>> byCategoryAndPriority) {
+            this.start = start;
+            this.total = total;
+            this.notified = notified;
+            this.byPriority = byPriority;
+            this.byCategory = byCategory;
+            this.byCategoryAndPriority = byCategoryAndPriority;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Durable record of which reminders have been delivered, as one bitmask per event id (bit
+ * {@code i} is reminder offset {@code i}). Deliveries are appended to a journal; the journal is
+ * folded into a snapshot on {@link #compact}. A torn record at the end of the journal, from a
+ * crash mid-write, is ignored.
+ */
+public class DeliveryLog {
+    private static final String SNAPSHOT_FILE = "deliveries.snapshot";
+    private static final String JOURNAL_FILE = "deliveries.journal";
+
+    private final File snapshot;
+    private final File journal;
+    private DataOutputStream journalOut;
+    private int journalRecords;
+    private boolean loadFailed; // Keeps compact() from replacing files that could not be read
+
+    /**
+     * @param directory where the snapshot and journal live; {@code null} keeps nothing on disk
+     */
+    public DeliveryLog(File directory) {
+        this.snapshot = directory != null ? new File(directory, SNAPSHOT_FILE) : null;
+        this.journal = directory != null ? new File(directory, JOURNAL_FILE) : null;
+    }
+
+    /**
+     * Reads the snapshot and replays the journal over it into {@code masks}.
+     *
+     * @return false if either file could not be read; {@code masks} then holds whatever was
+     *         read, and {@link #compact} leaves both files alone from here on
+     */
+    public boolean load(Map<String, Long> masks) {
+        if (snapshot == null) {
+            return true;
+        }
+        if (snapshot.exists()) {
+            try (DataInputStream in = open(snapshot)) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    masks.put(in.readUTF(), in.readLong());
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to load delivered reminders snapshot: " + e.getMessage());
+                loadFailed = true;
+            }
+        }
+        if (journal.exists()) {
+            try (DataInputStream in = open(journal)) {
+                while (true) {
+                    String id = in.readUTF();
+                    masks.merge(id, in.readLong(), (a, b) -> a | b);
+                    journalRecords++;
+                }
+            } catch (EOFException e) {
+                // End of the journal, or a record cut short by a crash
+            } catch (IOException e) {
+                System.err.println("Failed to load delivered reminders journal: " + e.getMessage());
+                loadFailed = true;
+            }
+        }
+        return !loadFailed;
+    }
+
+    /**
+     * Appends the current mask of one event. Buffered until {@link #flush}.
+     */
+    public void record(String eventId, long mask) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            if (journalOut == null) {
+                journalOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journal, true)));
+            }
+            journalOut.writeUTF(eventId);
+            journalOut.writeLong(mask);
+            journalRecords++;
+        } catch (IOException e) {
+            System.err.println("Failed to record delivered reminder: " + e.getMessage());
+        }
+    }
+
+    public void flush() {
+        if (journalOut == null) {
+            return;
+        }
+        try {
+            journalOut.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to flush delivered reminders: " + e.getMessage());
+        }
+    }
+
+    public int getJournalRecords() {
+        return journalRecords;
+    }
+
+    /**
+     * Replaces the snapshot with {@code masks} and empties the journal. Does nothing after a
+     * failed {@link #load}, so the journal keeps growing until a restart can read both files.
+     */
+    public void compact(Map<String, Long> masks) {
+        if (snapshot == null) {
+            journalRecords = 0;
+            return;
+        }
+        if (loadFailed) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(masks.size());
+                for (Map.Entry<String, Long> entry : masks.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            File temp = new File(snapshot.getPath() + ".tmp");
+            EventArchive.writeForced(temp, bytes.toByteArray());
+            Files.move(temp.toPath(), snapshot.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            // The snapshot now covers everything journalled; a crash before this point just replays it again.
+            if (journalOut != null) {
+                journalOut.close();
+                journalOut = null;
+            }
+            Files.deleteIfExists(journal.toPath());
+            journalRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Failed to compact delivered reminders: " + e.getMessage());
+        }
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+}
@@ -0,0 +1,419 @@
+package manager;
+
+import event.Event;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for past events. Each archive run writes one immutable segment per UTC month,
+ * made of independently gzipped blocks of time-ordered events; a month's segment that is still
+ * small is folded into the new one, so frequent small runs do not leave a trail of tiny
+ * segments. A small sparse index, sorted by month, records the time range and byte range of
+ * every block, so a historical query only decompresses the blocks it overlaps.
+ */
+public class EventArchive {
+    private static final String INDEX_FILE = "index.json";
+    private static final int BLOCK_SIZE = 256;
+    private static final int MIN_SEGMENT_EVENTS = 4 * BLOCK_SIZE; // Smaller segments are merged on append
+    private static final Comparator<SegmentInfo> INDEX_ORDER = Comparator
+            .comparing((SegmentInfo segment) -> YearMonth.parse(segment.partition))
+            .thenComparingLong(segment -> segment.minEpochSecond);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.gz(\\.tmp)?");
+
+    private final File directory;
+    private final ObjectMapper mapper;
+    private final JavaType eventListType;
+    private final List<SegmentInfo> segments;
+    private String loadFailure; // Set when index.json exists but cannot be read; appends are refused
+    private long lastSegmentNumber;
+
+    public EventArchive(File directory) {
+        this.directory = directory;
+        this.mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        this.eventListType = mapper.getTypeFactory().constructCollectionType(List.class, Event.class);
+        this.segments = new ArrayList<>();
+        loadIndex();
+        lastSegmentNumber = highestSegmentNumber();
+    }
+
+    // Taken from the files on disk rather than the index, so a lost index cannot lead to a
+    // segment name being handed out twice.
+    private long highestSegmentNumber() {
+        long highest = 0;
+        File[] partitions = directory.listFiles(File::isDirectory);
+        if (partitions == null) {
+            return highest;
+        }
+        for (File partition : partitions) {
+            String[] names = partition.list();
+            if (names == null) {
+                continue;
+            }
+            for (String name : names) {
+                Matcher matcher = SEGMENT_NAME.matcher(name);
+                if (matcher.matches()) {
+                    highest = Math.max(highest, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        return highest;
+    }
+
+    private void loadIndex() {
+        File file = new File(directory, INDEX_FILE);
+        if (file.exists() && file.length() > 0) {
+            try {
+                List<SegmentInfo> loaded = mapper.readValue(file,
+                        mapper.getTypeFactory().constructCollectionType(List.class, SegmentInfo.class));
+                segments.addAll(loaded);
+                segments.sort(INDEX_ORDER); // Older indexes are in append order
+                System.out.println("Archive index loaded: " + segments.size() + " segments");
+            } catch (IOException e) {
+                loadFailure = e.getMessage();
+                System.err.println("Failed to load archive index, archiving is disabled: " + loadFailure);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code events} to new segments and publishes them in the index. When this returns
+     * the segments and the index have been forced to disk; on failure nothing is published and
+     * the caller keeps the events live. Refused while an existing index could not be read, as
+     * rewriting it would drop every segment it lists.
+     */
+    public synchronized void append(List<Event> events) throws IOException {
+        if (loadFailure != null) {
+            throw new IOException("Archive index could not be read: " + loadFailure);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<YearMonth, List<Event>> byMonth = new TreeMap<>();
+        for (Event event : events) {
+            YearMonth month = YearMonth.from(event.getEventInstant().atOffset(ZoneOffset.UTC));
+            byMonth.computeIfAbsent(month, m -> new ArrayList<>()).add(event);
+        }
+
+        List<SegmentInfo> written = new ArrayList<>();
+        List<SegmentInfo> merged = new ArrayList<>();
+        for (Map.Entry<YearMonth, List<Event>> entry : byMonth.entrySet()) {
+            List<Event> batch = entry.getValue();
+            SegmentInfo small = smallSegmentOf(entry.getKey());
+            if (small != null) {
+                batch.addAll(readSegment(small));
+                merged.add(small);
+            }
+            written.add(writeSegment(entry.getKey(), batch));
+        }
+
+        List<SegmentInfo> updated = new ArrayList<>(segments);
+        updated.removeAll(merged);
+        updated.addAll(written);
+        updated.sort(INDEX_ORDER);
+        writeIndex(updated);
+        segments.clear();
+        segments.addAll(updated);
+        // Unlisted now; a file left behind by a crash here is never read
+        for (SegmentInfo segment : merged) {
+            Files.deleteIfExists(new File(directory, segment.file).toPath());
+        }
+    }
+
+    private SegmentInfo smallSegmentOf(YearMonth month) {
+        for (int i = firstSegmentOf(month); i < segments.size() && monthOf(segments.get(i)).equals(month); i++) {
+            if (segments.get(i).count < MIN_SEGMENT_EVENTS) {
+                return segments.get(i);
+            }
+        }
+        return null;
+    }
+
+    // Index of the first segment in month or later; segments are sorted by month.
+    private int firstSegmentOf(YearMonth month) {
+        int low = 0;
+        int high = segments.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (monthOf(segments.get(mid)).isBefore(month)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static YearMonth monthOf(SegmentInfo segment) {
+        return YearMonth.parse(segment.partition);
+    }
+
+    private static YearMonth monthOf(long epochSecond) {
+        return YearMonth.from(Instant.ofEpochSecond(epochSecond).atOffset(ZoneOffset.UTC));
+    }
+
+    private List<Event> readSegment(SegmentInfo segment) throws IOException {
+        List<Event> events = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, segment.file), "r")) {
+            for (BlockInfo block : segment.blocks) {
+                events.addAll(readBlock(file, block));
+            }
+        }
+        return events;
+    }
+
+    private SegmentInfo writeSegment(YearMonth month, List<Event> events) throws IOException {
+        events.sort(Comparator.comparing(Event::getEventInstant));
+        File partition = new File(directory, month.toString());
+        Files.createDirectories(partition.toPath());
+        String name = String.format("segment-%06d.gz", ++lastSegmentNumber);
+
+        SegmentInfo segment = new SegmentInfo();
+        segment.partition = month.toString();
+        segment.file = month + "/" + name;
+        segment.count = events.size();
+        segment.minEpochSecond = events.get(0).getEventInstant().getEpochSecond();
+        segment.maxEpochSecond = events.get(events.size() - 1).getEventInstant().getEpochSecond();
+        segment.counts = countsOf(events);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (int start = 0; start < events.size(); start += BLOCK_SIZE) {
+            List<Event> block = events.subList(start, Math.min(start + BLOCK_SIZE, events.size()));
+            BlockInfo info = new BlockInfo();
+            info.offset = data.size();
+            info.firstEpochSecond = block.get(0).getEventInstant().getEpochSecond();
+            info.lastEpochSecond = block.get(block.size() - 1).getEventInstant().getEpochSecond();
+            try (OutputStream gzip = new GZIPOutputStream(data)) {
+                mapper.writeValue(gzip, block);
+            }
+            info.length = (int) (data.size() - info.offset);
+            segment.blocks.add(info);
+        }
+
+        File target = new File(partition, name);
+        File temp = new File(partition, name + ".tmp");
+        writeForced(temp, data.toByteArray());
+        // Without REPLACE_EXISTING this fails rather than overwrite a segment
+        Files.move(temp.toPath(), target.toPath());
+        return segment;
+    }
+
+    private void writeIndex(List<SegmentInfo> index) throws IOException {
+        Files.createDirectories(directory.toPath());
+        File temp = new File(directory, INDEX_FILE + ".tmp");
+        writeForced(temp, mapper.writeValueAsBytes(index));
+        Files.move(temp.toPath(), new File(directory, INDEX_FILE).toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // The rename must not become visible before the data it points at.
+    static void writeForced(File file, byte[] data) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    // Per day, priority and category, keyed like CalendarAggregates so the calendar can be
+    // rebuilt from the index alone.
+    private static List<CountInfo> countsOf(List<Event> events) {
+        Map<String, CountInfo> counts = new LinkedHashMap<>();
+        for (Event event : events) {
+            String date = event.getEventTime().toLocalDate().toString();
+            String key = date + '|' + event.getPriority() + '|' + event.getCategory();
+            CountInfo count = counts.computeIfAbsent(key, k -> {
+                CountInfo info = new CountInfo();
+                info.date = date;
+                info.priority = event.getPriority().name();
+                info.category = event.getCategory();
+                return info;
+            });
+            count.total++;
+            if (event.isNotified()) {
+                count.notified++;
+            }
+        }
+        return new ArrayList<>(counts.values());
+    }
+
+    /**
+     * Calls {@code action} with the stored counts of every segment. Segments indexed before
+     * counts were recorded are counted from their events once, and the index is updated.
+     */
+    public synchronized void forEachCount(Consumer<CountInfo> action) throws IOException {
+        boolean upgraded = false;
+        for (SegmentInfo segment : segments) {
+            if (segment.counts == null) {
+                segment.counts = countsOf(readSegment(segment));
+                upgraded = true;
+            }
+            segment.counts.forEach(action);
+        }
+        if (upgraded) {
+            writeIndex(segments);
+        }
+    }
+
+    /**
+     * The ids among {@code candidates} that are already archived. Only blocks whose time range
+     * covers a candidate are read.
+     */
+    public synchronized Set<String> findArchivedIds(Collection<Event> candidates) throws IOException {
+        Set<String> found = new HashSet<>();
+        if (candidates.isEmpty()) {
+            return found;
+        }
+        Set<String> ids = new HashSet<>();
+        long[] seconds = new long[candidates.size()];
+        int i = 0;
+        for (Event event : candidates) {
+            ids.add(event.getId());
+            seconds[i++] = event.getEventInstant().getEpochSecond();
+        }
+        Arrays.sort(seconds);
+        YearMonth lastMonth = monthOf(seconds[seconds.length - 1]);
+        for (int s = firstSegmentOf(monthOf(seconds[0])); s < segments.size(); s++) {
+            SegmentInfo segment = segments.get(s);
+            if (monthOf(segment).isAfter(lastMonth)) {
+                break;
+            }
+            if (!covers(seconds, segment.minEpochSecond, segment.maxEpochSecond)) {
+                continue;
+            }
+            RandomAccessFile file = null;
+            try {
+                for (BlockInfo block : segment.blocks) {
+                    if (!covers(seconds, block.firstEpochSecond, block.lastEpochSecond)) {
+                        continue;
+                    }
+                    if (file == null) {
+                        file = new RandomAccessFile(new File(directory, segment.file), "r");
+                    }
+                    for (Event event : readBlock(file, block)) {
+                        if (ids.contains(event.getId())) {
+                            found.add(event.getId());
+                        }
+                    }
+                }
+            } finally {
+                if (file != null) {
+                    file.close();
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean covers(long[] sortedSeconds, long first, long last) {
+        int at = Arrays.binarySearch(sortedSeconds, first);
+        int index = at >= 0 ? at : -at - 1;
+        return index < sortedSeconds.length && sortedSeconds[index] <= last;
+    }
+
+    /**
+     * Archived events with {@code from <= time < to}, ordered by time.
+     */
+    public synchronized List<Event> findBetween(Instant from, Instant to) throws IOException {
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+        List<Event> result = new ArrayList<>();
+        YearMonth lastMonth = monthOf(toSecond);
+        for (int s = firstSegmentOf(monthOf(fromSecond)); s < segments.size(); s++) {
+            SegmentInfo segment = segments.get(s);
+            if (monthOf(segment).isAfter(lastMonth)) {
+                break;
+            }
+            if (segment.maxEpochSecond < fromSecond || segment.minEpochSecond > toSecond) {
+                continue;
+            }
+            try (RandomAccessFile file = new RandomAccessFile(new File(directory, segment.file), "r")) {
+                for (BlockInfo block : segment.blocks) {
+                    if (block.lastEpochSecond < fromSecond || block.firstEpochSecond > toSecond) {
+                        continue;
+                    }
+                    for (Event event : readBlock(file, block)) {
+                        Instant time = event.getEventInstant();
+                        if (!time.isBefore(from) && time.isBefore(to)) {
+                            result.add(event);
+                        }
+                    }
+                }
+            }
+        }
+        result.sort(Comparator.comparing(Event::getEventInstant));
+        return result;
+    }
+
+    public synchronized int size() {
+        return segments.stream().mapToInt(segment -> segment.count).sum();
+    }
+
+    private List<Event> readBlock(RandomAccessFile file, BlockInfo block) throws IOException {
+        byte[] compressed = new byte[block.length];
+        file.seek(block.offset);
+        file.readFully(compressed);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return mapper.readValue(in, eventListType);
+        }
+    }
+
+    public static class SegmentInfo {
+        public String partition;
+        public String file;
+        public int count;
+        public long minEpochSecond;
+        public long maxEpochSecond;
+        public List<BlockInfo> blocks = new ArrayList<>();
+        public List<CountInfo> counts; // Null in indexes written before counts were kept
+    }
+
+    public static class CountInfo {
+        public String date;
+        public String priority;
+        public String category;
+        public int total;
+        public int notified;
+    }
+
+    public static class BlockInfo {
+        public long offset;
+        public int length;
+        public long firstEpochSecond;
+        public long lastEpochSecond;
+    }
+}
@@ -0,0 +1,246 @@
+package manager;
+
+import event.Event;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AVL tree of events ordered by start time, where every node also carries the latest end time
+ * in its subtree. That lets an overlap query skip whole subtrees that end before the query
+ * window: every node it visits lies on the path to a result or to the window's edges, so it
+ * costs O(min(n, (k + 1) log n)) for k results.
+ *
+ * <p>Intervals are half-open, {@code [start, end)}, in epoch milliseconds. An event without an
+ * end time occupies its start millisecond only.
+ */
+public class IntervalTree {
+    private Node root;
+    private int size;
+
+    public static long startOf(Event event) {
+        return event.getEventInstant().toEpochMilli();
+    }
+
+    public static long endOf(Event event) {
+        long start = startOf(event);
+        return event.getEndInstant() != null ? Math.max(start + 1, event.getEndInstant().toEpochMilli()) : start + 1;
+    }
+
+    public void insert(Event event) {
+        root = insert(root, new Node(event));
+        size++;
+    }
+
+    public boolean remove(Event event) {
+        int before = size;
+        root = remove(root, startOf(event), event.getId());
+        return size < before;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Events overlapping {@code [from, to)}, ordered by start time.
+     */
+    public List<Event> findOverlapping(long from, long to) {
+        List<Event> result = new ArrayList<>();
+        collect(root, from, to, result);
+        return result;
+    }
+
+    /**
+     * Busy time within {@code [from, to)}: the union of overlapping events that have an end time,
+     * clipped to the window and ordered by start. Events without an end do not block time.
+     */
+    public List<Span> findBusy(long from, long to) {
+        List<Span> busy = new ArrayList<>();
+        long spanStart = 0;
+        long spanEnd = Long.MIN_VALUE;
+        // Overlaps come back ordered by start, so one pass merges them.
+        for (Event event : findOverlapping(from, to)) {
+            if (event.getEndInstant() == null) {
+                continue;
+            }
+            long start = Math.max(from, startOf(event));
+            long end = Math.min(to, endOf(event));
+            if (start > spanEnd) {
+                if (spanEnd != Long.MIN_VALUE) {
+                    busy.add(new Span(spanStart, spanEnd));
+                }
+                spanStart = start;
+                spanEnd = end;
+            } else {
+                spanEnd = Math.max(spanEnd, end);
+            }
+        }
+        if (spanEnd != Long.MIN_VALUE) {
+            busy.add(new Span(spanStart, spanEnd));
+        }
+        return busy;
+    }
+
+    /**
+     * The gaps between {@code busy} spans (as returned by {@link #findBusy}) within {@code [from, to)}.
+     */
+    public static List<Span> findFree(List<Span> busy, long from, long to) {
+        List<Span> free = new ArrayList<>();
+        long cursor = from;
+        for (Span span : busy) {
+            long start = span.start.toEpochMilli();
+            if (start > cursor) {
+                free.add(new Span(cursor, start));
+            }
+            cursor = Math.max(cursor, span.end.toEpochMilli());
+        }
+        if (cursor < to) {
+            free.add(new Span(cursor, to));
+        }
+        return free;
+    }
+
+    private static void collect(Node node, long from, long to, List<Event> result) {
+        if (node == null || node.maxEnd <= from) {
+            return; // Everything below ends before the window opens
+        }
+        collect(node.left, from, to, result);
+        if (node.start < to) {
+            if (node.end > from) {
+                result.add(node.event);
+            }
+            collect(node.right, from, to, result);
+        }
+    }
+
+    private static int compare(long start, String id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : id.compareTo(node.event.getId());
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.event.getId(), node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, long start, String id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null || node.right == null) {
+                return node.left != null ? node.left : node.right;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    public static class Span {
+        public final Instant start;
+        public final Instant end;
+
+        private Span(long start, long end) {
+            this.start = Instant.ofEpochMilli(start);
+            this.end = Instant.ofEpochMilli(end);
+        }
+    }
+
+    private static final class Node {
+        private final Event event;
+        private final long start;
+        private final long end;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(Event event) {
+            this.event = event;
+            this.start = startOf(event);
+            this.end = endOf(event);
+            this.maxEnd = end;
+        }
+    }
+}
@@ -1,41 +1,60 @@
 package manager;
 
-import event.Event;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.time.Duration;
+import java.util.function.Consumer;
 
 
 public class NotificationService {
+    private static final Duration CHECK_PERIOD = Duration.ofMinutes(1);
     private final ReminderManager manager;
-    private final Timer timer;
+    private final Scheduler scheduler;
+    private final boolean ownsScheduler;
+    private final Consumer<ReminderManager.Reminder> notifier;
+    private Scheduler.Task task;
 
     public NotificationService(ReminderManager manager) {
+        this(manager, new TimerScheduler("event-notifier"), true, NotificationService::printNotification);
+    }
+
+    /**
+     * @param notifier receives each reminder of each event once, when it comes due
+     */
+    public NotificationService(ReminderManager manager, Scheduler scheduler, Consumer<ReminderManager.Reminder> notifier) {
+        this(manager, scheduler, false, notifier);
+    }
+
+    private NotificationService(ReminderManager manager, Scheduler scheduler, boolean ownsScheduler,
+                                Consumer<ReminderManager.Reminder> notifier) {
         this.manager = manager;
-        this.timer = new Timer(true);
+        this.scheduler = scheduler;
+        this.ownsScheduler = ownsScheduler;
+        this.notifier = notifier;
+    }
+
+    public static Duration getCheckPeriod() {
+        return CHECK_PERIOD;
     }
 
     public void start() {
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                checkNotifications();
-            }
-        }, 0, 60000); // Check every minute
+        task = scheduler.scheduleAtFixedRate(this::checkNotifications, Duration.ZERO, CHECK_PERIOD);
     }
 
     private void checkNotifications() {
-        manager.getAllEvents().stream()
-            .filter(event -> event.getEventTime().isBefore(
-                java.time.LocalDateTime.now().plusMinutes(15)))
-            .forEach(this::sendNotification);
+        manager.takeDueReminders(scheduler.clock().instant())
+            .forEach(notifier);
     }
 
-    private void sendNotification(Event event) {
-        System.out.printf("NOTIFICATION: %s is coming up at %s%n",
-            event.getTitle(), event.getFormattedTime());
+    private static void printNotification(ReminderManager.Reminder reminder) {
+        System.out.printf("NOTIFICATION: %s is coming up at %s (%d minute reminder)%n",
+            reminder.event.getTitle(), reminder.event.getFormattedTime(), reminder.offsetMinutes);
     }
 
     public void stop() {
-        timer.cancel();
+        if (task != null) {
+            task.cancel();
+        }
+        if (ownsScheduler) {
+            scheduler.shutdown();
+        }
     }
-}
\ No newline at end of file
+}
@@ -2,60 +2,183 @@ package manager;
 
 import event.Event;
 import event.EventComparator;
+import event.EventPriority;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
 public class ReminderManager {
+    /** What {@link #addEvent(Event, ConflictPolicy)} does when the event overlaps a high-priority one. */
+    public enum ConflictPolicy { IGNORE, FLAG, REJECT }
+
     private static final String DATA_FILE = "events.json";
+    private static final String ARCHIVE_DIR = "archive";
+    private static final int MIN_JOURNAL_RECORDS_TO_COMPACT = 10_000;
+    private static final int MIN_STALE_TRIGGERS_TO_COMPACT = 1024;
+    private final File dataFile;
+    private final EventArchive archive;
+    private final DeliveryLog deliveryLog;
     private final PriorityQueue<Event> eventQueue;
     private final Map<String, Event> eventMap;
+    // Reminder state is addressed by int handle: triggers refer to events by handle, and each handle
+    // has a bitmask of delivered offsets. Freed handles are reused; a handle's generation moves on
+    // when it is freed, so triggers left behind by the previous event no longer match it.
+    private final TriggerIndex triggers;
+    private final Map<String, Integer> handles;
+    private Event[] eventsByHandle;
+    private long[] deliveredByHandle;
+    private int[] generationByHandle;
+    private int[] freeHandles;
+    private int freeCount;
+    private int nextHandle;
+    private int pendingTriggers; // Triggers in the index that will still fire; the rest are stale
+    // Masks loaded for events the data file could not supply; kept through compaction so a
+    // failed load cannot erase delivered state
+    private final Map<String, Long> unmatchedMasks = new HashMap<>();
+    private final CalendarAggregates aggregates;
+    private final IntervalTree intervals;
     private final ObjectMapper mapper;
 
     public ReminderManager() {
+        this(new File(DATA_FILE), new EventArchive(new File(ARCHIVE_DIR)));
+    }
+
+    /**
+     * @param dataFile where live events are loaded from and saved to; {@code null} keeps them in memory only
+     * @param archive where past events are moved to; {@code null} keeps them live
+     */
+    public ReminderManager(File dataFile, EventArchive archive) {
+        this.dataFile = dataFile;
+        this.archive = archive;
+        this.deliveryLog = new DeliveryLog(dataFile != null ? dataFile.getAbsoluteFile().getParentFile() : null);
         this.mapper = new ObjectMapper().registerModule(new JavaTimeModule());
         this.eventQueue = new PriorityQueue<>(new EventComparator());
         this.eventMap = new HashMap<>();
-        loadEventsFromFile();
+        this.triggers = new TriggerIndex();
+        this.handles = new HashMap<>();
+        this.eventsByHandle = new Event[64];
+        this.deliveredByHandle = new long[64];
+        this.generationByHandle = new int[64];
+        this.freeHandles = new int[64];
+        this.aggregates = new CalendarAggregates();
+        this.intervals = new IntervalTree();
+        Map<String, Long> delivered = new HashMap<>();
+        boolean deliveriesLoaded = deliveryLog.load(delivered);
+        if (loadEventsFromFile(delivered) && deliveriesLoaded) {
+            deliveryLog.compact(deliveredMasks()); // Also drops masks of events removed since the last run
+        } else {
+            delivered.keySet().removeAll(handles.keySet());
+            unmatchedMasks.putAll(delivered);
+        }
+        loadArchivedAggregates();
+    }
+
+    /**
+     * A manager that neither reads nor writes files, for tests and simulations with many events.
+     */
+    public static ReminderManager inMemory() {
+        return new ReminderManager(null, null);
     }
 
-    private void loadEventsFromFile() {
-        File file = new File(DATA_FILE);
-        if (file.exists() && file.length() > 0) {
+    // Returns false if the data file exists but could not be read.
+    private boolean loadEventsFromFile(Map<String, Long> delivered) {
+        File file = dataFile;
+        if (file != null && file.exists() && file.length() > 0) {
             try {
                 List<Event> loadedEvents = mapper.readValue(file,
                         mapper.getTypeFactory().constructCollectionType(List.class, Event.class));
+                // A crash between archiving and saving leaves events in both tiers; the archive wins
+                Set<String> archived = archive != null ? archive.findArchivedIds(loadedEvents) : Collections.emptySet();
                 for (Event event : loadedEvents) {
+                    if (archived.contains(event.getId())) {
+                        continue;
+                    }
+                    // The delivery log is newer than the file; files from before it only have the flag
+                    long all = allReminders(event);
+                    long mask = delivered.getOrDefault(event.getId(), event.isNotified() ? all : 0L) & all;
+                    event.setNotified(mask == all);
                     eventQueue.add(event);
                     eventMap.put(event.getId(), event);
+                    aggregates.add(event);
+                    intervals.insert(event);
+                    indexReminders(event, mask);
                 }
-                System.out.println("Events loaded successfully from " + DATA_FILE);
+                System.out.println("Events loaded successfully from " + dataFile);
             } catch (IOException e) {
                 System.err.println("Failed to load events from file: " + e.getMessage());
+                return false;
             }
         }
+        return true;
+    }
+
+    // Archived events still count towards the calendar, from the counts kept in the archive index.
+    private void loadArchivedAggregates() {
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.forEachCount(count -> aggregates.add(LocalDate.parse(count.date),
+                    EventPriority.valueOf(count.priority), count.category, count.total, count.notified));
+        } catch (IOException e) {
+            System.err.println("Failed to read archived events: " + e.getMessage());
+        }
     }
 
     public synchronized void saveEventsToFile() {
+        if (dataFile == null) {
+            return;
+        }
         try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(new File(DATA_FILE), new ArrayList<>(eventQueue));
-            System.out.println("Events saved successfully to " + DATA_FILE);
+            // Write aside and rename, so a crash mid-write cannot leave a truncated file behind
+            File temp = new File(dataFile.getPath() + ".tmp");
+            mapper.writerWithDefaultPrettyPrinter().writeValue(temp, new ArrayList<>(eventQueue));
+            Files.move(temp.toPath(), dataFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Events saved successfully to " + dataFile);
         } catch (IOException e) {
             System.err.println("Failed to save events to file: " + e.getMessage());
         }
     }
 
     public synchronized void addEvent(Event event) {
+        addEvent(event, ConflictPolicy.IGNORE);
+    }
+
+    /**
+     * Adds {@code event} unless {@code policy} is {@code REJECT} and it overlaps a live HIGH
+     * priority event. The check and the insert happen under the same lock.
+     *
+     * @return the overlapping HIGH priority events; empty for {@code IGNORE}
+     */
+    public synchronized List<Event> addEvent(Event event, ConflictPolicy policy) {
         if (event == null || event.getTitle() == null || event.getTitle().trim().isEmpty()) {
             throw new IllegalArgumentException("Event cannot be null and title cannot be empty.");
         }
+        List<Event> conflicts = Collections.emptyList();
+        if (policy != ConflictPolicy.IGNORE) {
+            conflicts = intervals.findOverlapping(IntervalTree.startOf(event), IntervalTree.endOf(event)).stream()
+                    .filter(other -> other.getPriority() == EventPriority.HIGH)
+                    .collect(Collectors.toList());
+            if (policy == ConflictPolicy.REJECT && !conflicts.isEmpty()) {
+                return conflicts;
+            }
+        }
         eventQueue.add(event);
         eventMap.put(event.getId(), event);
+        aggregates.add(event);
+        intervals.insert(event);
+        indexReminders(event, event.isNotified() ? allReminders(event) : 0L);
         saveEventsToFile();
+        return conflicts;
     }
 
     public synchronized boolean removeEvent(String eventId) {
@@ -63,6 +186,9 @@ public class ReminderManager {
         if (event != null) {
             boolean removed = eventQueue.remove(event);
             if (removed) {
+                aggregates.remove(event);
+                intervals.remove(event);
+                unindexReminders(event);
                 saveEventsToFile();
             }
             return removed;
@@ -89,9 +215,239 @@ public class ReminderManager {
 
     public synchronized void markEventAsNotified(String eventId) {
         Event event = eventMap.get(eventId);
-        if (event != null) {
+        if (event != null && !event.isNotified()) {
             event.setNotified(true);
-            saveEventsToFile();
+            aggregates.markNotified(event);
+            int handle = handles.get(eventId);
+            pendingTriggers -= Long.bitCount(allReminders(event) & ~deliveredByHandle[handle]);
+            deliveredByHandle[handle] = allReminders(event);
+            deliveryLog.record(eventId, deliveredByHandle[handle]);
+            deliveryLog.flush();
+            dropStaleTriggers();
+        }
+    }
+
+    private static long allReminders(Event event) {
+        int count = event.getReminderOffsets().size();
+        return count == Long.SIZE ? -1L : (1L << count) - 1;
+    }
+
+    private void indexReminders(Event event, long delivered) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (nextHandle == eventsByHandle.length) {
+                eventsByHandle = Arrays.copyOf(eventsByHandle, nextHandle * 2);
+                deliveredByHandle = Arrays.copyOf(deliveredByHandle, nextHandle * 2);
+                generationByHandle = Arrays.copyOf(generationByHandle, nextHandle * 2);
+            }
+            handle = nextHandle++;
+        }
+        handles.put(event.getId(), handle);
+        eventsByHandle[handle] = event;
+        deliveredByHandle[handle] = delivered;
+        long start = event.getEventInstant().toEpochMilli();
+        List<Integer> offsets = event.getReminderOffsets();
+        for (int i = 0; i < offsets.size(); i++) {
+            if ((delivered & (1L << i)) == 0) {
+                triggers.add(start - offsets.get(i) * 60_000L, TriggerIndex.pack(handle, generationByHandle[handle], i));
+                pendingTriggers++;
+            }
+        }
+    }
+
+    // Leaves the event's triggers in the index; they are skipped when they come due, or dropped
+    // together once stale triggers outnumber pending ones.
+    private void unindexReminders(Event event) {
+        Integer handle = handles.remove(event.getId());
+        if (handle != null) {
+            pendingTriggers -= Long.bitCount(allReminders(event) & ~deliveredByHandle[handle]);
+            eventsByHandle[handle] = null;
+            deliveredByHandle[handle] = 0;
+            generationByHandle[handle] = (generationByHandle[handle] + 1) % TriggerIndex.GENERATIONS;
+            if (freeCount == freeHandles.length) {
+                freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+            }
+            freeHandles[freeCount++] = handle;
+            dropStaleTriggers();
+        }
+    }
+
+    private boolean isPending(long trigger) {
+        int handle = TriggerIndex.handleOf(trigger);
+        return eventsByHandle[handle] != null
+                && generationByHandle[handle] == TriggerIndex.generationOf(trigger)
+                && (deliveredByHandle[handle] & (1L << TriggerIndex.offsetIndexOf(trigger))) == 0;
+    }
+
+    // Each pass is O(n) and follows at least as many removals, so the cost per removal is O(1).
+    private void dropStaleTriggers() {
+        int stale = triggers.size() - pendingTriggers;
+        if (stale > Math.max(MIN_STALE_TRIGGERS_TO_COMPACT, pendingTriggers)) {
+            triggers.retainIf(this::isPending);
+        }
+    }
+
+    private Map<String, Long> deliveredMasks() {
+        Map<String, Long> masks = new HashMap<>(unmatchedMasks);
+        for (Map.Entry<String, Integer> entry : handles.entrySet()) {
+            long mask = deliveredByHandle[entry.getValue()];
+            if (mask != 0) {
+                masks.put(entry.getKey(), mask);
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Marks every reminder due at or before {@code now} as delivered and returns them, earliest
+     * first. Each (event, offset) pair is returned once, even across restarts: its bit is
+     * journalled before this returns. An event is flagged notified once all its reminders are
+     * delivered. The cost is O(k log n) for k due reminders.
+     */
+    public synchronized List<Reminder> takeDueReminders(Instant now) {
+        List<Reminder> due = new ArrayList<>();
+        long nowMillis = now.toEpochMilli();
+        while (!triggers.isEmpty() && triggers.peekFireTime() <= nowMillis) {
+            long fireTime = triggers.peekFireTime();
+            long trigger = triggers.peekTrigger();
+            triggers.poll();
+            if (!isPending(trigger)) {
+                continue; // Removed, archived or already delivered
+            }
+            int handle = TriggerIndex.handleOf(trigger);
+            int offsetIndex = TriggerIndex.offsetIndexOf(trigger);
+            Event event = eventsByHandle[handle];
+            pendingTriggers--;
+            deliveredByHandle[handle] |= 1L << offsetIndex;
+            deliveryLog.record(event.getId(), deliveredByHandle[handle]);
+            if (deliveredByHandle[handle] == allReminders(event) && !event.isNotified()) {
+                event.setNotified(true);
+                aggregates.markNotified(event);
+            }
+            due.add(new Reminder(event, event.getReminderOffsets().get(offsetIndex), Instant.ofEpochMilli(fireTime)));
+        }
+        if (!due.isEmpty()) {
+            deliveryLog.flush();
+            if (deliveryLog.getJournalRecords() > Math.max(MIN_JOURNAL_RECORDS_TO_COMPACT, handles.size())) {
+                deliveryLog.compact(deliveredMasks());
+            }
+        }
+        return due;
+    }
+
+    public synchronized List<CalendarAggregates.Summary> getCalendarSummary(
+            CalendarAggregates.Granularity granularity, LocalDate from, LocalDate to) {
+        return aggregates.summarize(granularity, from, to);
+    }
+
+    /**
+     * Live events overlapping {@code [from, to)}, ordered by start time.
+     */
+    public synchronized List<Event> findConflicts(Instant from, Instant to) {
+        return intervals.findOverlapping(from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    /**
+     * Live events overlapping the event with the given id, excluding that event itself.
+     */
+    public synchronized Optional<List<Event>> findConflicts(String eventId) {
+        Event event = eventMap.get(eventId);
+        if (event == null) {
+            return Optional.empty();
+        }
+        List<Event> overlapping = intervals.findOverlapping(IntervalTree.startOf(event), IntervalTree.endOf(event));
+        overlapping.remove(event);
+        return Optional.of(overlapping);
+    }
+
+    /**
+     * Merged busy spans of live events within {@code [from, to)}.
+     */
+    public synchronized List<IntervalTree.Span> getBusy(Instant from, Instant to) {
+        return intervals.findBusy(from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    /**
+     * Moves non-recurring events that ended before {@code cutoff} (or started, if they have no
+     * end) from the live set into the archive. They stay in the calendar aggregates and in {@link #getEventsBetween}.
+     *
+     * @return the number of events archived
+     */
+    public synchronized int archivePastEvents(Instant cutoff) {
+        if (archive == null) {
+            return 0;
+        }
+        List<Event> past = new ArrayList<>();
+        List<Event> kept = new ArrayList<>();
+        while (!eventQueue.isEmpty() && eventQueue.peek().getEventInstant().isBefore(cutoff)) {
+            Event event = eventQueue.poll();
+            boolean ongoing = event.getEndInstant() != null && !event.getEndInstant().isBefore(cutoff);
+            (event.isRecurring() || ongoing ? kept : past).add(event);
+        }
+        eventQueue.addAll(kept);
+        if (past.isEmpty()) {
+            return 0;
+        }
+
+        // Archive first: a crash before the save below can only leave an event in both tiers,
+        // and events the archive already holds from such a crash are not appended again.
+        try {
+            Set<String> archived = archive.findArchivedIds(past);
+            archive.append(past.stream()
+                    .filter(event -> !archived.contains(event.getId()))
+                    .collect(Collectors.toList()));
+        } catch (IOException e) {
+            System.err.println("Failed to archive events: " + e.getMessage());
+            eventQueue.addAll(past);
+            return 0;
+        }
+        for (Event event : past) {
+            eventMap.remove(event.getId());
+            intervals.remove(event);
+            unindexReminders(event);
+        }
+        saveEventsToFile();
+        return past.size();
+    }
+
+    /**
+     * Live and archived events with {@code from <= time < to}, ordered by time.
+     */
+    public List<Event> getEventsBetween(Instant from, Instant to) throws IOException {
+        // Read the live set before the archive so an event archived in between shows up twice
+        // (and is deduplicated) rather than not at all.
+        List<Event> live;
+        synchronized (this) {
+            live = eventMap.values().stream()
+                    .filter(event -> !event.getEventInstant().isBefore(from) && event.getEventInstant().isBefore(to))
+                    .collect(Collectors.toList());
+        }
+        Map<String, Event> byId = new LinkedHashMap<>();
+        if (archive != null) {
+            for (Event event : archive.findBetween(from, to)) {
+                byId.put(event.getId(), event);
+            }
+        }
+        for (Event event : live) {
+            byId.putIfAbsent(event.getId(), event);
+        }
+        List<Event> result = new ArrayList<>(byId.values());
+        result.sort(new EventComparator());
+        return result;
+    }
+
+    /** One reminder of an event, due {@code offsetMinutes} before it. */
+    public static class Reminder {
+        public final Event event;
+        public final int offsetMinutes;
+        public final Instant fireTime;
+
+        public Reminder(Event event, int offsetMinutes, Instant fireTime) {
+            this.event = event;
+            this.offsetMinutes = offsetMinutes;
+            this.fireTime = fireTime;
         }
     }
 }
@@ -0,0 +1,25 @@
+package manager;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Where the background services get their time and their timers from. {@link TimerScheduler}
+ * runs on the wall clock; {@link SimulatedScheduler} runs tasks in virtual time so reminder
+ * firing can be tested and load-tested without waiting.
+ */
+public interface Scheduler {
+
+    Clock clock();
+
+    Task schedule(Runnable task, Duration delay);
+
+    Task scheduleAtFixedRate(Runnable task, Duration initialDelay, Duration period);
+
+    /** Cancels every task and releases the scheduler's threads, if it has any. */
+    void shutdown();
+
+    interface Task {
+        void cancel();
+    }
+}
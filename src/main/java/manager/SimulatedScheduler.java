@@ -0,0 +1,133 @@
+package manager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.PriorityQueue;
+
+/**
+ * Runs tasks in virtual time. Nothing happens until {@link #advanceTo} is called; it then runs
+ * every task due up to that instant in time order, on the calling thread, with {@link #clock()}
+ * reading each task's scheduled time while it runs. Not thread-safe.
+ */
+public class SimulatedScheduler implements Scheduler {
+    private final VirtualClock clock = new VirtualClock(ZoneOffset.UTC);
+    private final PriorityQueue<SimulatedTask> queue = new PriorityQueue<>();
+    private long sequence; // Keeps tasks due at the same instant in scheduling order
+    private volatile Instant now;
+
+    public SimulatedScheduler(Instant start) {
+        this.now = start;
+    }
+
+    @Override
+    public Clock clock() {
+        return clock;
+    }
+
+    @Override
+    public Task schedule(Runnable task, Duration delay) {
+        return enqueue(new SimulatedTask(task, now.plus(delay), null, sequence++));
+    }
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, Duration initialDelay, Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        return enqueue(new SimulatedTask(task, now.plus(initialDelay), period, sequence++));
+    }
+
+    @Override
+    public void shutdown() {
+        queue.forEach(SimulatedTask::cancel);
+        queue.clear();
+    }
+
+    /**
+     * Runs every task due at or before {@code target}, then leaves the clock at {@code target}.
+     *
+     * @return the number of task executions
+     */
+    public long advanceTo(Instant target) {
+        long executed = 0;
+        while (!queue.isEmpty() && !queue.peek().due.isAfter(target)) {
+            SimulatedTask next = queue.poll();
+            if (next.cancelled) {
+                continue;
+            }
+            now = next.due;
+            next.task.run();
+            executed++;
+            if (next.period != null && !next.cancelled) {
+                next.due = next.due.plus(next.period);
+                next.sequence = sequence++;
+                queue.add(next);
+            }
+        }
+        if (target.isAfter(now)) {
+            now = target;
+        }
+        return executed;
+    }
+
+    public long advanceBy(Duration duration) {
+        return advanceTo(now.plus(duration));
+    }
+
+    private Task enqueue(SimulatedTask task) {
+        queue.add(task);
+        return task;
+    }
+
+    private static final class SimulatedTask implements Task, Comparable<SimulatedTask> {
+        private final Runnable task;
+        private final Duration period;
+        private Instant due;
+        private long sequence;
+        private boolean cancelled;
+
+        private SimulatedTask(Runnable task, Instant due, Duration period, long sequence) {
+            this.task = task;
+            this.due = due;
+            this.period = period;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public int compareTo(SimulatedTask other) {
+            int byDue = due.compareTo(other.due);
+            return byDue != 0 ? byDue : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final class VirtualClock extends Clock {
+        private final ZoneId zone;
+
+        private VirtualClock(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new VirtualClock(zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package manager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Runs tasks on a daemon {@link Timer} thread against the system clock.
+ */
+public class TimerScheduler implements Scheduler {
+    private final Timer timer;
+    private final Clock clock;
+
+    public TimerScheduler(String threadName) {
+        this(threadName, Clock.systemUTC());
+    }
+
+    public TimerScheduler(String threadName, Clock clock) {
+        this.timer = new Timer(threadName, true);
+        this.clock = clock;
+    }
+
+    @Override
+    public Clock clock() {
+        return clock;
+    }
+
+    @Override
+    public Task schedule(Runnable task, Duration delay) {
+        TimerTask timerTask = wrap(task);
+        timer.schedule(timerTask, delay.toMillis());
+        return timerTask::cancel;
+    }
+
+    @Override
+    public Task scheduleAtFixedRate(Runnable task, Duration initialDelay, Duration period) {
+        TimerTask timerTask = wrap(task);
+        timer.scheduleAtFixedRate(timerTask, initialDelay.toMillis(), period.toMillis());
+        return timerTask::cancel;
+    }
+
+    @Override
+    public void shutdown() {
+        timer.cancel();
+    }
+
+    private static TimerTask wrap(Runnable task) {
+        return new TimerTask() {
+            @Override
+            public void run() {
+                task.run();
+            }
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package manager;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Min-heap of reminder triggers keyed by fire time, held in two parallel primitive arrays so a
+ * pending trigger costs 16 bytes. A trigger packs an event handle, the generation of that handle
+ * and the index of one of the event's reminder offsets into a {@code long}.
+ */
+public class TriggerIndex {
+    public static final int GENERATIONS = 1 << 24;
+    private static final int OFFSET_BITS = 8;
+    private static final int HANDLE_SHIFT = 32;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+    private long[] fireTimes = new long[64]; // Epoch milliseconds
+    private long[] triggers = new long[64];
+    private int size;
+
+    public static long pack(int handle, int generation, int offsetIndex) {
+        return ((long) handle << HANDLE_SHIFT) | ((long) (generation & (GENERATIONS - 1)) << OFFSET_BITS) | offsetIndex;
+    }
+
+    public static int handleOf(long trigger) {
+        return (int) (trigger >>> HANDLE_SHIFT);
+    }
+
+    public static int generationOf(long trigger) {
+        return (int) (trigger >>> OFFSET_BITS) & (GENERATIONS - 1);
+    }
+
+    public static int offsetIndexOf(long trigger) {
+        return (int) (trigger & OFFSET_MASK);
+    }
+
+    public void add(long fireTime, long trigger) {
+        if (size == fireTimes.length) {
+            fireTimes = Arrays.copyOf(fireTimes, size * 2);
+            triggers = Arrays.copyOf(triggers, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(fireTime, trigger, fireTimes[parent], triggers[parent])) {
+                break;
+            }
+            fireTimes[i] = fireTimes[parent];
+            triggers[i] = triggers[parent];
+            i = parent;
+        }
+        fireTimes[i] = fireTime;
+        triggers[i] = trigger;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long peekFireTime() {
+        return fireTimes[0];
+    }
+
+    public long peekTrigger() {
+        return triggers[0];
+    }
+
+    /** Removes the earliest trigger; read it first with {@link #peekFireTime} and {@link #peekTrigger}. */
+    public void poll() {
+        int last = --size;
+        if (size > 0) {
+            siftDown(0, fireTimes[last], triggers[last]);
+        }
+    }
+
+    // Places (fireTime, trigger) at or below slot i, moving smaller children up.
+    private void siftDown(int i, long fireTime, long trigger) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && less(fireTimes[right], triggers[right], fireTimes[child], triggers[child])) {
+                child = right;
+            }
+            if (!less(fireTimes[child], triggers[child], fireTime, trigger)) {
+                break;
+            }
+            fireTimes[i] = fireTimes[child];
+            triggers[i] = triggers[child];
+            i = child;
+        }
+        fireTimes[i] = fireTime;
+        triggers[i] = trigger;
+    }
+
+    /** Drops every trigger {@code keep} rejects, in O(n). */
+    public void retainIf(LongPredicate keep) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep.test(triggers[i])) {
+                fireTimes[kept] = fireTimes[i];
+                triggers[kept] = triggers[i];
+                kept++;
+            }
+        }
+        size = kept;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i, fireTimes[i], triggers[i]);
+        }
+    }
+
+    // Ties go to the lower trigger, so co-due reminders come out in a stable order.
+    private static boolean less(long timeA, long triggerA, long timeB, long triggerB) {
+        return timeA < timeB || (timeA == timeB && triggerA < triggerB);
+    }
+}
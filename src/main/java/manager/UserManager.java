@@ -51,6 +51,18 @@ public class UserManager {
         saveUsersToFile();
     }
 
+    /**
+     * Adds {@code user} unless the username is taken; the check and the insert are one step, so
+     * concurrent signups for the same name cannot both succeed.
+     */
+    public synchronized boolean addUserIfAbsent(User user) {
+        if (userMap.putIfAbsent(user.getUsername(), user) != null) {
+            return false;
+        }
+        saveUsersToFile();
+        return true;
+    }
+
     public Optional<User> getUserByUsername(String username) {
         return Optional.ofNullable(userMap.get(username));
     }
@@ -1,20 +1,338 @@
 package util;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * ISO-8601 parsing and formatting for the API. Both directions are hand-rolled single passes:
+ * malformed input is reported with a {@code null} result rather than an exception, and
+ * formatting writes straight into a {@link StringBuilder} without intermediate date objects.
+ */
 public class DateUtils {
-    private static final DateTimeFormatter API_FORMAT = DateTimeFormatter.ISO_DATE_TIME;
-    
-    public static LocalDateTime parseApiDateTime(String dateTimeStr) {
-        try {
-            // First try ISO_DATE_TIME (with timezone)
-            return ZonedDateTime.parse(dateTimeStr, API_FORMAT).toLocalDateTime();
-        } catch (DateTimeParseException e) {
-            // Fallback to ISO_LOCAL_DATE_TIME (without timezone)
-            return LocalDateTime.parse(dateTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        }
-    }
-}
\ No newline at end of file
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final long DAYS_PER_CYCLE = 146_097L;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+
+    private static final Set<String> REGION_IDS = ZoneId.getAvailableZoneIds();
+    // Region ids only, so it cannot outgrow REGION_IDS; offsets are cheap to build and spelled many ways
+    private static final Map<String, ZoneId> ZONE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * A parsed timestamp: the UTC instant plus the zone it was written in, or {@code null}
+     * zone when it carried none and was resolved in the server's default zone.
+     */
+    public static final class ZonedInstant {
+        public final Instant instant;
+        public final ZoneId zone;
+
+        ZonedInstant(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+    }
+
+    /**
+     * Parses {@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]][Z|(+|-)HH[:mm[:ss]]][[Region/Id]]}.
+     *
+     * @return the parsed value, or {@code null} if {@code text} is not a valid timestamp
+     */
+    public static ZonedInstant tryParseApiDateTime(CharSequence text) {
+        return tryParseApiDateTime(text, null);
+    }
+
+    /**
+     * Like {@link #tryParseApiDateTime(CharSequence)}, but a timestamp without offset or region
+     * is resolved in {@code defaultZone} (the server's zone when that is {@code null}).
+     */
+    public static ZonedInstant tryParseApiDateTime(CharSequence text, ZoneId defaultZone) {
+        if (text == null) {
+            return null;
+        }
+        int len = text.length();
+        if (len < 16 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(13) != ':') {
+            return null;
+        }
+        char sep = text.charAt(10);
+        if (sep != 'T' && sep != 't') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+
+        int pos = 16;
+        int second = 0;
+        int nano = 0;
+        if (pos < len && text.charAt(pos) == ':') {
+            second = digits(text, pos + 1, 2);
+            if (second < 0 || second > 59) {
+                return null;
+            }
+            pos += 3;
+            if (pos < len && (text.charAt(pos) == '.' || text.charAt(pos) == ',')) {
+                int start = ++pos;
+                while (pos < len && pos - start < 9 && isDigit(text.charAt(pos))) {
+                    nano = nano * 10 + (text.charAt(pos) - '0');
+                    pos++;
+                }
+                if (pos == start || (pos < len && isDigit(text.charAt(pos)))) {
+                    return null;
+                }
+                for (int i = pos - start; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        ZoneOffset offset = null;
+        if (pos < len) {
+            char c = text.charAt(pos);
+            if (c == 'Z' || c == 'z') {
+                offset = ZoneOffset.UTC;
+                pos++;
+            } else if (c == '+' || c == '-') {
+                int end = pos + 1;
+                while (end < len && text.charAt(end) != '[') {
+                    end++;
+                }
+                int seconds = parseOffsetSeconds(text, pos + 1, end);
+                if (seconds < 0) {
+                    return null;
+                }
+                offset = ZoneOffset.ofTotalSeconds(c == '-' ? -seconds : seconds);
+                pos = end;
+            }
+        }
+
+        ZoneId region = null;
+        if (pos < len) {
+            if (text.charAt(pos) != '[' || text.charAt(len - 1) != ']') {
+                return null;
+            }
+            region = zoneOf(text.subSequence(pos + 1, len - 1).toString());
+            if (region == null) {
+                return null;
+            }
+        }
+
+        long localSeconds = toEpochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+        if (offset != null) {
+            return new ZonedInstant(Instant.ofEpochSecond(localSeconds - offset.getTotalSeconds(), nano),
+                    region != null ? region : offset);
+        }
+        ZoneId zone = region != null ? region : defaultZone;
+        LocalDateTime local = LocalDateTime.of(year, month, day, hour, minute, second, nano);
+        Instant instant = local.atZone(zone != null ? zone : ZoneId.systemDefault()).toInstant();
+        return new ZonedInstant(instant, zone);
+    }
+
+    /**
+     * Parses {@code yyyy-MM-dd}.
+     *
+     * @return the date, or {@code null} if {@code text} is not a valid date
+     */
+    public static LocalDate tryParseDate(CharSequence text) {
+        if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Formats {@code instant} as wall-clock time in {@code zone}. A {@code null} zone means the
+     * server's default zone and is written without an offset, like ISO_LOCAL_DATE_TIME; otherwise
+     * the offset in effect at that instant is appended.
+     */
+    public static String formatApiDateTime(Instant instant, ZoneId zone) {
+        StringBuilder sb = new StringBuilder(32);
+        appendApiDateTime(sb, instant, zone);
+        return sb.toString();
+    }
+
+    public static void appendApiDateTime(StringBuilder sb, Instant instant, ZoneId zone) {
+        ZoneOffset offset = (zone != null ? zone : ZoneId.systemDefault()).getRules().getOffset(instant);
+        long localSeconds = instant.getEpochSecond() + offset.getTotalSeconds();
+        long epochDay = Math.floorDiv(localSeconds, SECONDS_PER_DAY);
+        int secondOfDay = Math.floorMod(localSeconds, SECONDS_PER_DAY);
+        appendDate(sb, epochDay);
+        sb.append('T');
+        pad2(sb, secondOfDay / 3600);
+        sb.append(':');
+        pad2(sb, secondOfDay / 60 % 60);
+        sb.append(':');
+        pad2(sb, secondOfDay % 60);
+        int nano = instant.getNano();
+        if (nano != 0) {
+            sb.append('.');
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            String fraction = Integer.toString(nano);
+            for (int i = fraction.length(); i < digits; i++) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+        if (zone != null) {
+            sb.append(offset.getId());
+        }
+    }
+
+    /**
+     * Resolves a zone id such as {@code Europe/Paris}, {@code UTC} or {@code +02:00}.
+     *
+     * @return the zone, or {@code null} if the id is unknown
+     */
+    public static ZoneId zoneOf(String zoneId) {
+        if (zoneId == null || zoneId.isEmpty()) {
+            return null;
+        }
+        char first = zoneId.charAt(0);
+        if (zoneId.equals("Z")) {
+            return ZoneOffset.UTC;
+        } else if (first == '+' || first == '-') {
+            int seconds = parseOffsetSeconds(zoneId, 1, zoneId.length());
+            if (seconds < 0) {
+                return null;
+            }
+            return ZoneOffset.ofTotalSeconds(first == '-' ? -seconds : seconds);
+        } else if (REGION_IDS.contains(zoneId)) {
+            return ZONE_CACHE.computeIfAbsent(zoneId, ZoneId::of);
+        }
+        return null;
+    }
+
+    // Accepts HH, HHmm, HH:mm, HHmmss and HH:mm:ss; returns -1 when malformed.
+    private static int parseOffsetSeconds(CharSequence text, int start, int end) {
+        int hours = digits(text, start, 2);
+        int minutes = 0;
+        int seconds = 0;
+        int pos = start + 2;
+        if (hours < 0) {
+            return -1;
+        }
+        boolean colon = pos < end && text.charAt(pos) == ':';
+        if (pos < end) {
+            minutes = digits(text, colon ? pos + 1 : pos, 2);
+            pos += colon ? 3 : 2;
+            if (minutes < 0 || minutes > 59) {
+                return -1;
+            }
+        }
+        if (pos < end) {
+            if (colon && text.charAt(pos++) != ':') {
+                return -1;
+            }
+            seconds = digits(text, pos, 2);
+            pos += 2;
+            if (seconds < 0 || seconds > 59) {
+                return -1;
+            }
+        }
+        int total = hours * 3600 + minutes * 60 + seconds;
+        return pos == end && total <= MAX_OFFSET_SECONDS ? total : -1;
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        if (start + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Same arithmetic as LocalDate.toEpochDay, without building a LocalDate.
+    private static long toEpochDay(long year, int month, int day) {
+        long total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    // Same arithmetic as LocalDate.ofEpochDay, writing yyyy-MM-dd directly.
+    private static void appendDate(StringBuilder sb, long epochDay) {
+        long zeroDay = epochDay + DAYS_0000_TO_1970 - 60;
+        long adjust = 0;
+        if (zeroDay < 0) {
+            long adjustCycles = (zeroDay + 1) / DAYS_PER_CYCLE - 1;
+            adjust = adjustCycles * 400;
+            zeroDay += -adjustCycles * DAYS_PER_CYCLE;
+        }
+        long year = (400 * zeroDay + 591) / DAYS_PER_CYCLE;
+        long doy = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+        if (doy < 0) {
+            year--;
+            doy = zeroDay - (365 * year + year / 4 - year / 100 + year / 400);
+        }
+        year += adjust;
+        int marchMonth0 = ((int) doy * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int dayOfMonth = (int) doy - (marchMonth0 * 306 + 5) / 10 + 1;
+        year += marchMonth0 / 10;
+
+        if (year >= 0 && year < 10000) {
+            sb.append((char) ('0' + year / 1000)).append((char) ('0' + year / 100 % 10))
+              .append((char) ('0' + year / 10 % 10)).append((char) ('0' + year % 10));
+        } else {
+            sb.append(year);
+        }
+        sb.append('-');
+        pad2(sb, month);
+        sb.append('-');
+        pad2(sb, dayOfMonth);
+    }
+
+    private static void pad2(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
@@ -0,0 +1,130 @@
+package webserver;
+
+import java.net.InetSocketAddress;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of the API handlers: per-client token buckets with a separate
+ * budget for each route, plus a global cap on requests in flight. Over-budget clients get
+ * {@code 429}, and requests arriving while the server is saturated are shed with {@code 503}
+ * instead of queueing. Both carry a {@code Retry-After} header.
+ */
+public class AdmissionControl {
+    private static final long SHED_RETRY_AFTER_SECONDS = 1;
+
+    public enum Route {
+        // Burst size and sustained requests per second, per client.
+        EVENTS(40, 20.0),
+        LOGIN(5, 0.2),
+        SIGNUP(3, 0.05);
+
+        private final int burst;
+        private final double perSecond;
+
+        Route(int burst, double perSecond) {
+            this.burst = burst;
+            this.perSecond = perSecond;
+        }
+    }
+
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final Map<Route, RateLimiter> limiters = new EnumMap<>(Route.class);
+    private final Map<Route, RouteStats> stats = new EnumMap<>(Route.class);
+
+    public AdmissionControl(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        for (Route route : Route.values()) {
+            limiters.put(route, new RateLimiter(route.burst, route.perSecond));
+            stats.put(route, new RouteStats());
+        }
+    }
+
+    /**
+     * Wraps {@code handler} so that it only runs for admitted requests.
+     */
+    public RouteHandler guard(Route route, RouteHandler handler) {
+        return request -> {
+            RouteStats routeStats = stats.get(route);
+            long waitNanos = checkRate(route, request);
+            if (waitNanos > 0) {
+                routeStats.rateLimited.increment();
+                return reject(429, "Too many requests",
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+            }
+            if (!inFlight.tryAcquire()) {
+                routeStats.shed.increment();
+                return reject(503, "Server busy", SHED_RETRY_AFTER_SECONDS);
+            }
+            try {
+                routeStats.admitted.increment();
+                return handler.handle(request);
+            } finally {
+                inFlight.release();
+            }
+        };
+    }
+
+    // A request must fit both the budget of its address and, if it carries one, of its token.
+    private long checkRate(Route route, HttpRequest request) {
+        RateLimiter limiter = limiters.get(route);
+        String address = "ip:" + remoteAddress(request);
+        String token = bearerToken(request);
+        return token == null ? limiter.tryAcquire(address) : limiter.tryAcquire(address, "token:" + token);
+    }
+
+    private static String remoteAddress(HttpRequest request) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote == null) {
+            return "unknown";
+        }
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+
+    private static String bearerToken(HttpRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        String token = header.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private static HttpResponse reject(int statusCode, String message, long retryAfterSeconds) {
+        return HttpResponse.error(statusCode, message)
+                .header("Access-Control-Allow-Origin", "*")
+                .header("Retry-After", Long.toString(retryAfterSeconds));
+    }
+
+    /**
+     * Counters for the metrics endpoint, keyed by lower-case route name.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> routes = new LinkedHashMap<>();
+        for (Map.Entry<Route, RouteStats> entry : stats.entrySet()) {
+            RouteStats routeStats = entry.getValue();
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("admitted", routeStats.admitted.sum());
+            counts.put("rateLimited", routeStats.rateLimited.sum());
+            counts.put("shed", routeStats.shed.sum());
+            routes.put(entry.getKey().name().toLowerCase(), counts);
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("inFlight", maxInFlight - inFlight.availablePermits());
+        snapshot.put("maxInFlight", maxInFlight);
+        snapshot.put("routes", routes);
+        return snapshot;
+    }
+
+    private static final class RouteStats {
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rateLimited = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+    }
+}
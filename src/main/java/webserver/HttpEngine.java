@@ -0,0 +1,29 @@
+package webserver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Transport that accepts HTTP connections and hands each request to a {@link RouteHandler}.
+ */
+public interface HttpEngine {
+    void start(InetSocketAddress address, RouteHandler handler) throws IOException;
+
+    /** The bound port, useful when started on port 0. */
+    int getPort();
+
+    void stop();
+
+    static HttpEngine named(String name) {
+        return named(name, WorkerPool.DEFAULT_MAX_THREADS);
+    }
+
+    /** As {@link #named(String)}, with at most {@code maxWorkers} handler threads. */
+    static HttpEngine named(String name, int maxWorkers) {
+        return switch (name.toLowerCase()) {
+            case "jdk" -> new JdkHttpEngine(maxWorkers);
+            case "nio" -> new NioHttpEngine(maxWorkers);
+            default -> throw new IllegalArgumentException("Unknown HTTP engine: " + name);
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package webserver;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * An HTTP request as seen by the route handlers, independent of which {@link HttpEngine}
+ * received it. Header names are stored lower-case.
+ */
+public class HttpRequest {
+    private final String method;
+    private final String path;
+    private final String rawQuery;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final InetSocketAddress remoteAddress;
+
+    public HttpRequest(String method, String path, String rawQuery, Map<String, String> headers,
+                       byte[] body, InetSocketAddress remoteAddress) {
+        this.method = method;
+        this.path = path;
+        this.rawQuery = rawQuery;
+        this.headers = headers;
+        this.body = body;
+        this.remoteAddress = remoteAddress;
+    }
+
+    public String getMethod() { return method; }
+    public String getPath() { return path; }
+    public String getRawQuery() { return rawQuery; }
+    public byte[] getBody() { return body; }
+    public InetSocketAddress getRemoteAddress() { return remoteAddress; }
+
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase());
+    }
+
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
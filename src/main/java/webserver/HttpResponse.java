@@ -0,0 +1,63 @@
+package webserver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A fully buffered HTTP response produced by a route handler.
+ */
+public class HttpResponse {
+    private static final byte[] NO_BODY = new byte[0];
+
+    private final int status;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private final byte[] body;
+
+    public HttpResponse(int status, byte[] body) {
+        this.status = status;
+        this.body = body != null ? body : NO_BODY;
+    }
+
+    public static HttpResponse empty(int status) {
+        return new HttpResponse(status, NO_BODY);
+    }
+
+    public static HttpResponse json(int status, String json) {
+        return new HttpResponse(status, json.getBytes(StandardCharsets.UTF_8))
+                .header("Content-Type", "application/json");
+    }
+
+    public static HttpResponse error(int status, String message) {
+        return json(status, "{\"error\":\"" + message.replace("\"", "\\\"") + "\"}");
+    }
+
+    public HttpResponse header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public int getStatus() { return status; }
+    public Map<String, String> getHeaders() { return headers; }
+    public byte[] getBody() { return body; }
+
+    public static String reasonPhrase(int status) {
+        return switch (status) {
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 204 -> "No Content";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 409 -> "Conflict";
+            case 413 -> "Payload Too Large";
+            case 429 -> "Too Many Requests";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 503 -> "Service Unavailable";
+            default -> "Status " + status;
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package webserver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Engine on top of the JDK's built-in {@code com.sun.net.httpserver.HttpServer}.
+ */
+public class JdkHttpEngine implements HttpEngine {
+    private final int maxWorkers;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public JdkHttpEngine() {
+        this(WorkerPool.DEFAULT_MAX_THREADS);
+    }
+
+    public JdkHttpEngine(int maxWorkers) {
+        this.maxWorkers = maxWorkers;
+    }
+
+    @Override
+    public void start(InetSocketAddress address, RouteHandler handler) throws IOException {
+        server = HttpServer.create(address, 0);
+        server.createContext("/", exchange -> {
+            try {
+                write(exchange, handler.handle(toRequest(exchange)));
+            } finally {
+                exchange.close();
+            }
+        });
+        // Handlers run on their own threads so a slow BCrypt login cannot stall the accept loop;
+        // AdmissionControl bounds how many of them do real work at once. When the pool is full
+        // too, HttpServer closes the connection it could not hand off.
+        executor = WorkerPool.create("jdk-http-worker", maxWorkers);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @Override
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    private static HttpRequest toRequest(HttpExchange exchange) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : exchange.getRequestHeaders().entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                headers.put(entry.getKey().toLowerCase(), entry.getValue().get(0));
+            }
+        }
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        return new HttpRequest(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                exchange.getRequestURI().getRawQuery(), headers, body, exchange.getRemoteAddress());
+    }
+
+    private static void write(HttpExchange exchange, HttpResponse response) throws IOException {
+        response.getHeaders().forEach(exchange.getResponseHeaders()::set);
+        byte[] body = response.getBody();
+        exchange.sendResponseHeaders(response.getStatus(), body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package webserver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Engine built directly on a {@link Selector}. One event-loop thread does all socket I/O using
+ * pooled direct buffers; handlers run on worker threads. Connections are persistent (HTTP/1.1
+ * keep-alive) and requests may be pipelined: they are parsed as soon as they arrive, handled
+ * concurrently, and their responses are written back in request order, coalesced into as few
+ * writes as possible.
+ */
+public class NioHttpEngine implements HttpEngine {
+    private static final int BUFFER_SIZE = 32 * 1024; // Also the largest request accepted
+    private static final int MAX_POOLED_BUFFERS = 1024;
+    private static final int MAX_PIPELINED = 16; // Unanswered requests per connection before reads pause
+    private static final long IDLE_TIMEOUT_MILLIS = 30_000;
+
+    private final int maxWorkers;
+    private final BufferPool buffers = new BufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+    private RouteHandler handler;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private Thread eventLoop;
+    private volatile boolean running;
+
+    public NioHttpEngine() {
+        this(WorkerPool.DEFAULT_MAX_THREADS);
+    }
+
+    public NioHttpEngine(int maxWorkers) {
+        this.maxWorkers = maxWorkers;
+    }
+
+    @Override
+    public void start(InetSocketAddress address, RouteHandler handler) throws IOException {
+        this.handler = handler;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        workers = WorkerPool.create("nio-http-worker", maxWorkers);
+        running = true;
+        eventLoop = new Thread(this::runEventLoop, "nio-http-event-loop");
+        eventLoop.start();
+    }
+
+    @Override
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+    }
+
+    private void runEventLoop() {
+        long lastSweep = System.currentTimeMillis();
+        while (running) {
+            try {
+                selector.select(1000);
+                Connection ready;
+                while ((ready = completed.poll()) != null) {
+                    try {
+                        ready.flush();
+                    } catch (RuntimeException | Error e) {
+                        ready.fail(e);
+                    }
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        try {
+                            accept();
+                        } catch (RuntimeException | Error e) {
+                            System.err.println("HTTP accept error: " + e);
+                        }
+                        continue;
+                    }
+                    // One failing connection, even out of memory, must not take the loop down with it
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            connection.flush();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    } catch (RuntimeException | Error e) {
+                        connection.fail(e);
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now - lastSweep >= 1000) {
+                    closeIdleConnections(now);
+                    lastSweep = now;
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("HTTP event loop error: " + e);
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection) {
+                connection.close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close HTTP listener: " + e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(channel, key));
+            } catch (IOException | RuntimeException | Error e) {
+                channel.close(); // Also cancels a key registered without its connection
+                throw e;
+            }
+        }
+    }
+
+    private void closeIdleConnections(long now) {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection && connection.isIdle(now)) {
+                connection.close();
+            }
+        }
+    }
+
+    private static final class Exchange {
+        private final boolean keepAlive;
+        private volatile HttpResponse response;
+
+        private Exchange(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final InetSocketAddress remoteAddress;
+        private final ArrayDeque<Exchange> pending = new ArrayDeque<>(); // In request order
+        private ByteBuffer in; // Fill mode; holds bytes of requests not yet parsed, null while there are none
+        private ByteBuffer out; // Fill mode; only held while a write is incomplete
+        private byte[] current; // Encoded response being copied into out
+        private int currentPos;
+        private boolean closing; // A request asked to close; parse nothing after it
+        private boolean closeAfterWrite; // The last response taken ends the connection
+        private boolean inputClosed;
+        private long lastActive = System.currentTimeMillis();
+
+        private Connection(SocketChannel channel, SelectionKey key) throws IOException {
+            this.channel = channel;
+            this.key = key;
+            this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+        }
+
+        private void read() {
+            if (in == null) {
+                in = buffers.acquire();
+            }
+            try {
+                if (channel.read(in) < 0) {
+                    inputClosed = true;
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            lastActive = System.currentTimeMillis();
+            parseRequests();
+            flush();
+        }
+
+        /**
+         * Parses and dispatches every complete request in the input buffer.
+         *
+         * @return whether any request was taken off the buffer
+         */
+        private boolean parseRequests() {
+            boolean progress = false;
+            in.flip();
+            try {
+                while (!closing && pending.size() < MAX_PIPELINED && in.hasRemaining()) {
+                    int start = in.position();
+                    int headerEnd = indexOfHeaderEnd(in, start);
+                    if (headerEnd < 0) {
+                        if (in.limit() - start >= in.capacity()) {
+                            reject(431, "Request headers too large");
+                            progress = true;
+                        }
+                        break;
+                    }
+                    RequestHead head = RequestHead.parse(in, start, headerEnd);
+                    if (head == null) {
+                        reject(400, "Malformed request");
+                        progress = true;
+                        break;
+                    }
+                    if (head.chunked) {
+                        reject(501, "Chunked request bodies are not supported");
+                        progress = true;
+                        break;
+                    }
+                    if (head.contentLength < 0 || head.contentLength > in.capacity() - (headerEnd - start)) {
+                        reject(413, "Request too large");
+                        progress = true;
+                        break;
+                    }
+                    if (in.limit() - headerEnd < head.contentLength) {
+                        break; // Body still arriving
+                    }
+                    byte[] body = new byte[head.contentLength];
+                    in.position(headerEnd);
+                    in.get(body);
+                    dispatch(new HttpRequest(head.method, head.path, head.rawQuery, head.headers, body,
+                            remoteAddress), head.keepAlive);
+                    progress = true;
+                }
+            } finally {
+                in.compact();
+            }
+            return progress;
+        }
+
+        private void dispatch(HttpRequest request, boolean keepAlive) {
+            Exchange exchange = new Exchange(keepAlive);
+            pending.add(exchange);
+            closing = !keepAlive;
+            try {
+                workers.execute(() -> {
+                    HttpResponse response = null;
+                    try {
+                        response = handler.handle(request);
+                    } catch (Exception e) {
+                        response = HttpResponse.error(500, "Server error: " + e.getMessage());
+                    } finally {
+                        // Also on an Error, so the pipeline behind this exchange is not stuck
+                        exchange.response = response != null ? response : HttpResponse.error(500, "Server error");
+                        completed.add(this);
+                        selector.wakeup();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                exchange.response = workers.isShutdown()
+                        ? HttpResponse.error(503, "Server shutting down")
+                        : HttpResponse.error(503, "Server busy").header("Retry-After", "1");
+            }
+        }
+
+        // Answers in order behind any requests already pending, then closes the connection.
+        private void reject(int status, String message) {
+            Exchange exchange = new Exchange(false);
+            exchange.response = HttpResponse.error(status, message);
+            pending.add(exchange);
+            closing = true;
+        }
+
+        private void flush() {
+            while (channel.isOpen()) {
+                try {
+                    if (!writeReadyResponses()) {
+                        return; // Socket buffer full; OP_WRITE will call back
+                    }
+                } catch (IOException e) {
+                    close();
+                    return;
+                }
+                if (closeAfterWrite || (inputClosed && pending.isEmpty())) {
+                    close();
+                    return;
+                }
+                // Requests held back by the pipelining limit can go now that responses drained.
+                if (closing || pending.size() >= MAX_PIPELINED || in == null || in.position() == 0 || !parseRequests()) {
+                    updateInterest();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Writes responses from the head of the pipeline for as long as they are complete.
+         *
+         * @return true if everything ready was written, false if the socket stopped accepting data
+         */
+        private boolean writeReadyResponses() throws IOException {
+            while (true) {
+                if (out == null) {
+                    if (current == null && !headReady()) {
+                        return true;
+                    }
+                    out = buffers.acquire();
+                }
+                fillOutput();
+                out.flip();
+                if (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                if (out.hasRemaining()) {
+                    out.compact();
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return false;
+                }
+                buffers.release(out);
+                out = null;
+                lastActive = System.currentTimeMillis();
+            }
+        }
+
+        // Coalesces consecutive ready responses into one buffer so pipelined replies share writes.
+        private void fillOutput() {
+            while (out.hasRemaining()) {
+                if (current == null) {
+                    if (!headReady()) {
+                        return;
+                    }
+                    Exchange exchange = pending.poll();
+                    current = encode(exchange.response, exchange.keepAlive);
+                    currentPos = 0;
+                    closeAfterWrite = !exchange.keepAlive;
+                }
+                int length = Math.min(out.remaining(), current.length - currentPos);
+                out.put(current, currentPos, length);
+                currentPos += length;
+                if (currentPos == current.length) {
+                    current = null;
+                }
+            }
+        }
+
+        private boolean headReady() {
+            return !closeAfterWrite && !pending.isEmpty() && pending.peek().response != null;
+        }
+
+        private void updateInterest() {
+            // Idle keep-alive connections hold no buffer
+            if (in != null && in.position() == 0) {
+                buffers.release(in);
+                in = null;
+            }
+            int ops = 0;
+            if (!closing && !inputClosed && pending.size() < MAX_PIPELINED && (in == null || in.hasRemaining())) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (out != null) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+
+        private boolean isIdle(long now) {
+            return pending.isEmpty() && out == null && now - lastActive > IDLE_TIMEOUT_MILLIS;
+        }
+
+        private void fail(Throwable e) {
+            System.err.println("HTTP connection error: " + e);
+            close();
+        }
+
+        private void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to do with this connection
+            }
+            buffers.release(in);
+            buffers.release(out);
+            in = null;
+            out = null;
+        }
+    }
+
+    private static int indexOfHeaderEnd(ByteBuffer buffer, int start) {
+        for (int i = start; i + 3 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n'
+                    && buffer.get(i + 2) == '\r' && buffer.get(i + 3) == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] encode(HttpResponse response, boolean keepAlive) {
+        byte[] body = response.getBody();
+        StringBuilder head = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(response.getStatus()).append(' ')
+                .append(HttpResponse.reasonPhrase(response.getStatus())).append("\r\n");
+        response.getHeaders().forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+        if (response.getStatus() != 204) {
+            head.append("Content-Length: ").append(body.length).append("\r\n");
+        }
+        head.append(keepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n").append("\r\n");
+
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] encoded = new byte[headBytes.length + body.length];
+        System.arraycopy(headBytes, 0, encoded, 0, headBytes.length);
+        System.arraycopy(body, 0, encoded, headBytes.length, body.length);
+        return encoded;
+    }
+
+    private static final class RequestHead {
+        private String method;
+        private String path;
+        private String rawQuery;
+        private final Map<String, String> headers = new HashMap<>();
+        private int contentLength;
+        private boolean chunked;
+        private boolean keepAlive;
+
+        /** Parses the request line and headers in {@code [start, end)}; null if malformed. */
+        private static RequestHead parse(ByteBuffer buffer, int start, int end) {
+            byte[] bytes = new byte[end - start - 4];
+            buffer.get(start, bytes);
+            String[] lines = new String(bytes, StandardCharsets.ISO_8859_1).split("\r\n");
+
+            String[] requestLine = lines[0].split(" ");
+            if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+                return null;
+            }
+            RequestHead head = new RequestHead();
+            head.method = requestLine[0];
+            try {
+                URI target = new URI(requestLine[1]);
+                head.path = target.getPath();
+                head.rawQuery = target.getRawQuery();
+            } catch (URISyntaxException e) {
+                return null;
+            }
+            if (head.path == null) {
+                return null;
+            }
+
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) {
+                    return null;
+                }
+                head.headers.putIfAbsent(lines[i].substring(0, colon).trim().toLowerCase(),
+                        lines[i].substring(colon + 1).trim());
+            }
+
+            head.contentLength = parseContentLength(head.headers.get("content-length"));
+            head.chunked = "chunked".equalsIgnoreCase(head.headers.get("transfer-encoding"));
+            String connection = head.headers.getOrDefault("connection", "");
+            head.keepAlive = requestLine[2].equals("HTTP/1.1")
+                    ? !connection.equalsIgnoreCase("close")
+                    : connection.equalsIgnoreCase("keep-alive");
+            return head;
+        }
+
+        private static int parseContentLength(String value) {
+            if (value == null) {
+                return 0;
+            }
+            if (value.isEmpty() || value.length() > 9) {
+                return -1;
+            }
+            int length = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                length = length * 10 + (c - '0');
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package webserver;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter keyed by an arbitrary client key (remote address, auth token, ...).
+ * Buckets are spread over a fixed number of lock stripes so unrelated clients never contend
+ * on the same monitor.
+ */
+public class RateLimiter {
+    private static final int STRIPES = 32;
+    private static final int MAX_BUCKETS_PER_STRIPE = 4096;
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private final Stripe[] stripes;
+
+    public RateLimiter(int capacity, double tokensPerSecond) {
+        this(capacity, tokensPerSecond, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, double tokensPerSecond, LongSupplier nanoClock) {
+        if (capacity <= 0 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.nanoClock = nanoClock;
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(i);
+        }
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key}.
+     *
+     * @return 0 if the request is admitted, otherwise the number of nanoseconds until a token
+     *         becomes available
+     */
+    public long tryAcquire(String key) {
+        Stripe stripe = stripeOf(key);
+        long now = nanoClock.getAsLong();
+        synchronized (stripe) {
+            stripe.makeRoom(now, key);
+            Bucket bucket = stripe.bucket(key, now);
+            long wait = bucket.waitNanos();
+            if (wait == 0) {
+                bucket.tokens -= 1.0;
+            }
+            return wait;
+        }
+    }
+
+    /**
+     * Takes one token from each of the buckets of {@code first} and {@code second}, or from
+     * neither if either is empty, so a request turned away by one budget does not drain the other.
+     * The keys must differ.
+     *
+     * @return 0 if the request is admitted, otherwise the number of nanoseconds until both
+     *         buckets have a token
+     */
+    public long tryAcquire(String first, String second) {
+        Stripe firstStripe = stripeOf(first);
+        Stripe secondStripe = stripeOf(second);
+        // Lock in stripe order so concurrent two-key calls cannot deadlock
+        Stripe outer = firstStripe.index <= secondStripe.index ? firstStripe : secondStripe;
+        Stripe inner = outer == firstStripe ? secondStripe : firstStripe;
+        long now = nanoClock.getAsLong();
+        synchronized (outer) {
+            synchronized (inner) {
+                // Evict up front: evicting for the second key could drop the first's new bucket
+                if (firstStripe == secondStripe) {
+                    firstStripe.makeRoom(now, first, second);
+                } else {
+                    firstStripe.makeRoom(now, first);
+                    secondStripe.makeRoom(now, second);
+                }
+                Bucket firstBucket = firstStripe.bucket(first, now);
+                Bucket secondBucket = secondStripe.bucket(second, now);
+                long wait = Math.max(firstBucket.waitNanos(), secondBucket.waitNanos());
+                if (wait == 0) {
+                    firstBucket.tokens -= 1.0;
+                    secondBucket.tokens -= 1.0;
+                }
+                return wait;
+            }
+        }
+    }
+
+    private Stripe stripeOf(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private final class Stripe {
+        private final int index;
+        private final Map<String, Bucket> buckets = new HashMap<>();
+
+        private Stripe(int index) {
+            this.index = index;
+        }
+
+        private void makeRoom(long now, String... keys) {
+            int missing = 0;
+            for (String key : keys) {
+                if (!buckets.containsKey(key)) {
+                    missing++;
+                }
+            }
+            if (missing > 0 && buckets.size() + missing > MAX_BUCKETS_PER_STRIPE) {
+                evictIdle(now);
+            }
+        }
+
+        // Finds or creates the bucket of key, refilled up to now.
+        private Bucket bucket(String key, long now) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                buckets.put(key, bucket);
+            }
+            bucket.refill(now);
+            return bucket;
+        }
+
+        // Drops buckets that have refilled completely; they are indistinguishable from new ones.
+        private void evictIdle(long now) {
+            Iterator<Bucket> it = buckets.values().iterator();
+            while (it.hasNext()) {
+                Bucket bucket = it.next();
+                bucket.refill(now);
+                if (bucket.tokens >= capacity) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private final class Bucket {
+        private double tokens;
+        private long lastRefill;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefill = now;
+            }
+        }
+
+        private long waitNanos() {
+            return tokens >= 1.0 ? 0 : Math.max(1L, (long) Math.ceil((1.0 - tokens) / tokensPerNano));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package webserver;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface RouteHandler {
+    HttpResponse handle(HttpRequest request) throws IOException;
+}
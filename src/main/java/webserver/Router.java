@@ -0,0 +1,45 @@
+package webserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Route table shared by all engines. Like {@code HttpServer} contexts, a request goes to the
+ * handler with the longest path prefix that matches.
+ */
+public class Router implements RouteHandler {
+    private final List<Route> routes = new ArrayList<>();
+
+    public Router add(String prefix, RouteHandler handler) {
+        routes.add(new Route(prefix, handler));
+        routes.sort(Comparator.comparingInt((Route route) -> route.prefix.length()).reversed());
+        return this;
+    }
+
+    @Override
+    public HttpResponse handle(HttpRequest request) {
+        for (Route route : routes) {
+            if (request.getPath().startsWith(route.prefix)) {
+                try {
+                    return route.handler.handle(request);
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                    return HttpResponse.error(500, "Server error: " + e.getMessage());
+                }
+            }
+        }
+        return HttpResponse.error(404, "Not Found");
+    }
+
+    private static final class Route {
+        private final String prefix;
+        private final RouteHandler handler;
+
+        private Route(String prefix, RouteHandler handler) {
+            this.prefix = prefix;
+            this.handler = handler;
+        }
+    }
+}
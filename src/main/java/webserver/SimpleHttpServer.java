@@ -1,6 +1,9 @@
 package webserver;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import manager.CalendarAggregates;
+import manager.IntervalTree;
 import manager.ReminderManager;
 import event.Event;
 import event.EventPriority;
@@ -9,13 +12,18 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.*;
 import java.net.InetSocketAddress;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
-import com.sun.net.httpserver.HttpServer;
-import com.sun.net.httpserver.HttpExchange;
 
 import manager.UserManager;
 import manager.AuthService;
@@ -24,62 +32,31 @@ import controller.UserController;
 
 public class SimpleHttpServer {
     private static final int PORT = 8081;
-    private static final ReminderManager manager = new ReminderManager();
+    private static final Duration MAX_DURATION = Duration.ofDays(36_525); // A century
+    private static final int MAX_IN_FLIGHT = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+    private static ReminderManager manager;
     private static final UserManager userManager = new UserManager();
     private static final AuthService authService = new AuthService(userManager);
     private static final UserController userController = new UserController(authService);
+    private static final AdmissionControl admission = new AdmissionControl(MAX_IN_FLIGHT);
     
     private static final ObjectMapper mapper = new ObjectMapper()
         .registerModule(new JavaTimeModule());
-    private static HttpServer server;
+    private static HttpEngine engine;
 
-    public static void start() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
-
-        // API Contexts
-        server.createContext("/api/events", exchange -> {
-            if ("OPTIONS".equalsIgnoreCase(exchange.getRequestMethod())) {
-                setCorsHeaders(exchange);
-                exchange.sendResponseHeaders(204, -1);
-                return;
-            }
-            try {
-                setCorsHeaders(exchange);
-                switch (exchange.getRequestMethod()) {
-                    case "GET" -> handleGetEvents(exchange);
-                    case "POST" -> handlePostEvent(exchange);
-                    case "DELETE" -> handleDeleteEvent(exchange);
-                    default -> exchange.sendResponseHeaders(405, -1);
-                }
-            } finally {
-                exchange.close();
-            }
-        });
-        
-        // Corrected: Add a preflight check for the user contexts
-        server.createContext("/api/signup", exchange -> {
-            if ("OPTIONS".equalsIgnoreCase(exchange.getRequestMethod())) {
-                setCorsHeaders(exchange);
-                exchange.sendResponseHeaders(204, -1);
-            } else {
-                userController.handleSignup(exchange);
-            }
-        });
-        server.createContext("/api/login", exchange -> {
-            if ("OPTIONS".equalsIgnoreCase(exchange.getRequestMethod())) {
-                setCorsHeaders(exchange);
-                exchange.sendResponseHeaders(204, -1);
-            } else {
-                userController.handleLogin(exchange);
-            }
-        });
-        
-        // Static File Server Context
-        server.createContext("/", SimpleHttpServer::serveStaticFile);
+    public static void start(ReminderManager reminderManager) throws IOException {
+        start(reminderManager, "jdk");
+    }
 
-        server.setExecutor(null);
-        server.start();
-        System.out.println("Server running on http://localhost:" + PORT);
+    /**
+     * Starts the server on the given engine: {@code jdk} (com.sun.net.httpserver) or {@code nio}.
+     */
+    public static void start(ReminderManager reminderManager, String engineName) throws IOException {
+        manager = reminderManager;
+        // Headroom over the admission cap so requests past it still get a quick 503
+        engine = HttpEngine.named(engineName, 2 * MAX_IN_FLIGHT);
+        engine.start(new InetSocketAddress(PORT), routes());
+        System.out.println("Server running on http://localhost:" + PORT + " (" + engineName + " engine)");
         
         // Add a shutdown hook to save data before the server closes
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -90,39 +67,96 @@ public class SimpleHttpServer {
     }
 
     public static void stop() {
-        if (server != null) {
-            server.stop(0);
+        if (engine != null) {
+            engine.stop();
             System.out.println("Server stopped");
         }
     }
 
-    private static void serveStaticFile(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
+    static Router routes() {
+        Router router = new Router();
+
+        // API Contexts
+        router.add("/api/events", admission.guard(AdmissionControl.Route.EVENTS, request ->
+            switch (request.getMethod()) {
+                case "OPTIONS" -> withCors(HttpResponse.empty(204));
+                case "GET" -> handleGetEvents(request);
+                case "POST" -> handlePostEvent(request);
+                case "DELETE" -> handleDeleteEvent(request);
+                default -> withCors(HttpResponse.empty(405));
+            }));
+        router.add("/api/events/history", admission.guard(AdmissionControl.Route.EVENTS, request ->
+            switch (request.getMethod()) {
+                case "OPTIONS" -> withCors(HttpResponse.empty(204));
+                case "GET" -> handleGetHistory(request);
+                default -> withCors(HttpResponse.empty(405));
+            }));
+        router.add("/api/events/summary", admission.guard(AdmissionControl.Route.EVENTS, request ->
+            switch (request.getMethod()) {
+                case "OPTIONS" -> withCors(HttpResponse.empty(204));
+                case "GET" -> handleGetSummary(request);
+                default -> withCors(HttpResponse.empty(405));
+            }));
+        router.add("/api/events/conflicts", admission.guard(AdmissionControl.Route.EVENTS, request ->
+            switch (request.getMethod()) {
+                case "OPTIONS" -> withCors(HttpResponse.empty(204));
+                case "GET" -> handleGetConflicts(request);
+                default -> withCors(HttpResponse.empty(405));
+            }));
+        router.add("/api/freebusy", admission.guard(AdmissionControl.Route.EVENTS, request ->
+            switch (request.getMethod()) {
+                case "OPTIONS" -> withCors(HttpResponse.empty(204));
+                case "GET" -> handleGetFreeBusy(request);
+                default -> withCors(HttpResponse.empty(405));
+            }));
+        
+        // Corrected: Add a preflight check for the user contexts
+        router.add("/api/signup", admission.guard(AdmissionControl.Route.SIGNUP, request ->
+            "OPTIONS".equalsIgnoreCase(request.getMethod())
+                ? withCors(HttpResponse.empty(204))
+                : userController.handleSignup(request)));
+        router.add("/api/login", admission.guard(AdmissionControl.Route.LOGIN, request ->
+            "OPTIONS".equalsIgnoreCase(request.getMethod())
+                ? withCors(HttpResponse.empty(204))
+                : userController.handleLogin(request)));
+        router.add("/api/metrics", SimpleHttpServer::handleMetrics);
+        
+        // Static File Server Context
+        router.add("/", SimpleHttpServer::serveStaticFile);
+        return router;
+    }
+
+    private static HttpResponse serveStaticFile(HttpRequest request) throws IOException {
+        String path = request.getPath();
         if (path.equals("/")) {
             path = "/login.html"; // Redirect to login page
         }
         
         try (InputStream is = SimpleHttpServer.class.getResourceAsStream("/web" + path)) {
             if (is == null) {
-                exchange.sendResponseHeaders(404, 0); // Not Found
-            } else {
-                exchange.sendResponseHeaders(200, is.available());
-                OutputStream os = exchange.getResponseBody();
-                is.transferTo(os);
+                return HttpResponse.empty(404); // Not Found
             }
-        } finally {
-            exchange.close();
+            return new HttpResponse(200, is.readAllBytes());
         }
     }
     
-    private static void setCorsHeaders(HttpExchange exchange) {
-        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET,POST,DELETE,OPTIONS");
-        exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
+    private static HttpResponse withCors(HttpResponse response) {
+        return response
+            .header("Access-Control-Allow-Origin", "*")
+            .header("Access-Control-Allow-Methods", "GET,POST,DELETE,OPTIONS")
+            .header("Access-Control-Allow-Headers", "Content-Type, Authorization");
+    }
+
+    private static HttpResponse handleMetrics(HttpRequest request) throws IOException {
+        if (!"GET".equalsIgnoreCase(request.getMethod())) {
+            return withCors(HttpResponse.empty(405));
+        }
+        return sendResponse(200, mapper.writeValueAsString(Map.of("admission", admission.snapshot())));
     }
 
-    private static void handleGetEvents(HttpExchange exchange) throws IOException {
-        String query = exchange.getRequestURI().getQuery();
+    private static HttpResponse handleGetEvents(HttpRequest request) throws IOException {
+        String query = request.getRawQuery() != null
+            ? URLDecoder.decode(request.getRawQuery(), StandardCharsets.UTF_8) : null;
         String category = null;
 
         if (query != null && query.contains("=")) {
@@ -140,103 +174,244 @@ public class SimpleHttpServer {
         }
 
         List<EventResponseDto> responseEvents = events.stream()
-            .map(event -> new EventResponseDto(
-                event.getId(),
-                event.getTitle(),
-                event.getDescription(),
-                event.getEventTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
-                event.getPriority().name(),
-                event.isRecurring(),
-                event.getCategory()
-            ))
+            .map(EventResponseDto::from)
             .collect(Collectors.toList());
 
         String response = mapper.writeValueAsString(responseEvents);
-        sendResponse(exchange, 200, response);
+        return sendResponse(200, response);
+    }
+
+    private static HttpResponse handleGetSummary(HttpRequest request) throws IOException {
+        Map<String, String> params = parseQuery(request.getRawQuery());
+        CalendarAggregates.Granularity granularity = switch (params.getOrDefault("granularity", "day").toLowerCase()) {
+            case "day" -> CalendarAggregates.Granularity.DAY;
+            case "week" -> CalendarAggregates.Granularity.WEEK;
+            case "month" -> CalendarAggregates.Granularity.MONTH;
+            default -> null;
+        };
+        LocalDate from = DateUtils.tryParseDate(params.get("from"));
+        LocalDate to = DateUtils.tryParseDate(params.get("to"));
+        if (granularity == null || from == null || to == null) {
+            return sendResponse(400,
+                "{\"error\":\"granularity must be day, week or month; from and to must be yyyy-MM-dd dates\"}");
+        }
+
+        String response = mapper.writeValueAsString(manager.getCalendarSummary(granularity, from, to));
+        return sendResponse(200, response);
+    }
+
+    private static HttpResponse handleGetHistory(HttpRequest request) throws IOException {
+        Map<String, String> params = parseQuery(request.getRawQuery());
+        Instant from = parseBound(params.get("from"), false);
+        Instant to = parseBound(params.get("to"), true);
+        if (from == null || to == null) {
+            return sendResponse(400, "{\"error\":\"from and to must be yyyy-MM-dd dates or ISO date-times\"}");
+        }
+
+        List<EventResponseDto> responseEvents = manager.getEventsBetween(from, to).stream()
+            .map(EventResponseDto::from)
+            .collect(Collectors.toList());
+        return sendResponse(200, mapper.writeValueAsString(responseEvents));
+    }
+
+    // Either ?id= for the events overlapping an existing one, or ?start=&end= for a window.
+    private static HttpResponse handleGetConflicts(HttpRequest request) throws IOException {
+        Map<String, String> params = parseQuery(request.getRawQuery());
+        List<Event> conflicts;
+        if (params.containsKey("id")) {
+            Optional<List<Event>> found = manager.findConflicts(params.get("id"));
+            if (found.isEmpty()) {
+                return sendResponse(404, "{\"error\":\"Event not found\"}");
+            }
+            conflicts = found.get();
+        } else {
+            Instant start = parseBound(params.get("start"), false);
+            Instant end = parseBound(params.get("end"), true);
+            if (start == null || end == null || !start.isBefore(end)) {
+                return sendResponse(400,
+                    "{\"error\":\"Give id, or start and end as yyyy-MM-dd dates or ISO date-times with start before end\"}");
+            }
+            conflicts = manager.findConflicts(start, end);
+        }
+
+        List<EventResponseDto> responseEvents = conflicts.stream()
+            .map(EventResponseDto::from)
+            .collect(Collectors.toList());
+        return sendResponse(200, mapper.writeValueAsString(responseEvents));
     }
 
-    private static void handlePostEvent(HttpExchange exchange) throws IOException {
+    private static HttpResponse handleGetFreeBusy(HttpRequest request) throws IOException {
+        Map<String, String> params = parseQuery(request.getRawQuery());
+        Instant from = parseBound(params.get("from"), false);
+        Instant to = parseBound(params.get("to"), true);
+        if (from == null || to == null || !from.isBefore(to)) {
+            return sendResponse(400,
+                "{\"error\":\"from and to must be yyyy-MM-dd dates or ISO date-times with from before to\"}");
+        }
+
+        List<IntervalTree.Span> busy = manager.getBusy(from, to);
+        List<IntervalTree.Span> free = IntervalTree.findFree(busy, from.toEpochMilli(), to.toEpochMilli());
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", DateUtils.formatApiDateTime(from, ZoneId.systemDefault()));
+        response.put("to", DateUtils.formatApiDateTime(to, ZoneId.systemDefault()));
+        response.put("busy", busy.stream().map(SpanDto::from).collect(Collectors.toList()));
+        response.put("free", free.stream().map(SpanDto::from).collect(Collectors.toList()));
+        return sendResponse(200, mapper.writeValueAsString(response));
+    }
+
+    // A bare date covers the whole day in the server's zone, so "to" is exclusive of the next day.
+    private static Instant parseBound(String value, boolean endOfRange) {
+        LocalDate date = DateUtils.tryParseDate(value);
+        if (date != null) {
+            return (endOfRange ? date.plusDays(1) : date).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        DateUtils.ZonedInstant parsed = DateUtils.tryParseApiDateTime(value);
+        return parsed != null ? parsed.instant : null;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static HttpResponse handlePostEvent(HttpRequest request) {
         try {
-            String requestBody = new BufferedReader(new InputStreamReader(exchange.getRequestBody()))
-                .lines().collect(Collectors.joining("\n"));
+            String requestBody = request.getBodyAsString();
 
             EventDto eventDto = mapper.readValue(requestBody, EventDto.class);
 
             if (eventDto.title == null || eventDto.title.trim().isEmpty() ||
                 eventDto.eventTime == null || eventDto.priority == null) {
                 String errorJson = "{\"error\":\"Title, eventTime, and priority are required and cannot be empty\"}";
-                sendResponse(exchange, 400, errorJson);
-                return;
+                return sendResponse(400, errorJson);
             }
 
-            LocalDateTime eventTime;
-            try {
-                eventTime = DateUtils.parseApiDateTime(eventDto.eventTime);
-            } catch (DateTimeParseException e) {
-                eventTime = LocalDateTime.parse(eventDto.eventTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            ZoneId defaultZone = DateUtils.zoneOf(eventDto.zoneId);
+            if (eventDto.zoneId != null && defaultZone == null) {
+                return sendResponse(400, "{\"error\":\"Unknown zoneId\"}");
+            }
+            DateUtils.ZonedInstant eventTime = DateUtils.tryParseApiDateTime(eventDto.eventTime, defaultZone);
+            if (eventTime == null) {
+                return sendResponse(400, "{\"error\":\"Invalid dateTime format\"}");
+            }
+
+            Instant endTime = null;
+            if (eventDto.endTime != null) {
+                DateUtils.ZonedInstant parsedEnd = DateUtils.tryParseApiDateTime(eventDto.endTime, defaultZone);
+                if (parsedEnd == null) {
+                    return sendResponse(400, "{\"error\":\"Invalid endTime format\"}");
+                }
+                endTime = parsedEnd.instant;
+            } else if (eventDto.durationMinutes != null) {
+                if (eventDto.durationMinutes < 0 || eventDto.durationMinutes > MAX_DURATION.toMinutes()) {
+                    return sendResponse(400, "{\"error\":\"durationMinutes must be between 0 and "
+                            + MAX_DURATION.toMinutes() + "\"}");
+                }
+                endTime = eventTime.instant.plus(Duration.ofMinutes(eventDto.durationMinutes));
+            }
+            if (endTime != null && endTime.isBefore(eventTime.instant)) {
+                return sendResponse(400, "{\"error\":\"endTime cannot be before eventTime\"}");
+            }
+
+            ReminderManager.ConflictPolicy policy = switch (eventDto.onConflict == null ? "" : eventDto.onConflict.toLowerCase()) {
+                case "" -> ReminderManager.ConflictPolicy.IGNORE;
+                case "flag" -> ReminderManager.ConflictPolicy.FLAG;
+                case "reject" -> ReminderManager.ConflictPolicy.REJECT;
+                default -> null;
+            };
+            if (policy == null) {
+                return sendResponse(400, "{\"error\":\"onConflict must be flag or reject\"}");
             }
 
             Event event = new Event(
                 eventDto.title,
                 eventDto.description != null ? eventDto.description : "",
-                eventTime,
+                eventTime.instant,
+                endTime,
+                eventTime.zone != null ? eventTime.zone.getId() : null,
                 EventPriority.valueOf(eventDto.priority.toUpperCase()),
                 eventDto.isRecurring,
                 eventDto.category
             );
+            if (eventDto.reminderOffsets != null) {
+                try {
+                    event.setReminderOffsets(eventDto.reminderOffsets);
+                } catch (IllegalArgumentException e) {
+                    return sendResponse(400, "{\"error\":\"" + e.getMessage() + "\"}");
+                }
+            }
 
-            manager.addEvent(event);
-
-            EventResponseDto responseDto = new EventResponseDto(
-                event.getId(),
-                event.getTitle(),
-                event.getDescription(),
-                event.getEventTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
-                event.getPriority().name(),
-                event.isRecurring(),
-                event.getCategory()
-            );
+            List<String> conflicts = manager.addEvent(event, policy).stream()
+                .map(Event::getId)
+                .collect(Collectors.toList());
+            if (policy == ReminderManager.ConflictPolicy.REJECT && !conflicts.isEmpty()) {
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("error", "Overlaps high-priority events");
+                error.put("conflicts", conflicts);
+                return sendResponse(409, mapper.writeValueAsString(error));
+            }
 
-            sendResponse(exchange, 201, mapper.writeValueAsString(responseDto));
-        } catch (DateTimeParseException e) {
-            String errorJson = "{\"error\":\"Invalid dateTime format: " + e.getMessage().replace("\"", "\\\"") + "\"}";
-            sendResponse(exchange, 400, errorJson);
+            EventResponseDto response = EventResponseDto.from(event);
+            if (policy == ReminderManager.ConflictPolicy.FLAG) {
+                response.conflicts = conflicts;
+            }
+            return sendResponse(201, mapper.writeValueAsString(response));
         } catch (IllegalArgumentException e) {
             String errorJson = "{\"error\":\"Invalid priority: " + e.getMessage().replace("\"", "\\\"") + "\"}";
-            sendResponse(exchange, 400, errorJson);
+            return sendResponse(400, errorJson);
         } catch (Exception e) {
             e.printStackTrace();
             String errorJson = "{\"error\":\"Server error: " + e.getMessage().replace("\"", "\\\"") + "\"}";
-            sendResponse(exchange, 500, errorJson);
+            return sendResponse(500, errorJson);
         }
     }
 
-    private static void handleDeleteEvent(HttpExchange exchange) throws IOException {
-        String path = exchange.getRequestURI().getPath();
+    private static HttpResponse handleDeleteEvent(HttpRequest request) {
+        String path = request.getPath();
         String eventId = path.substring(path.lastIndexOf('/') + 1);
 
         boolean deleted = manager.removeEvent(eventId);
-        setCorsHeaders(exchange);
-        exchange.sendResponseHeaders(deleted ? 204 : 404, -1);
+        return withCors(HttpResponse.empty(deleted ? 204 : 404));
     }
 
-    private static void sendResponse(HttpExchange exchange, int statusCode, String response)
-            throws IOException {
-        setCorsHeaders(exchange);
-        exchange.getResponseHeaders().set("Content-Type", "application/json");
-        exchange.sendResponseHeaders(statusCode, response.getBytes().length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes());
-        }
+    private static HttpResponse sendResponse(int statusCode, String response) {
+        return withCors(HttpResponse.json(statusCode, response));
     }
     
     public static class EventDto {
         public String title;
         public String description;
         public String eventTime;
+        public String zoneId; // Applies when eventTime carries no offset or region
+        public String endTime; // Optional; takes precedence over durationMinutes
+        public Long durationMinutes;
         public String priority;
         public String category;
         public boolean isRecurring;
+        public String onConflict; // Optional: "flag" or "reject" overlaps with HIGH priority events
+        public List<Integer> reminderOffsets; // Minutes before the event; defaults to [15]
+    }
+
+    public static class SpanDto {
+        public String start;
+        public String end;
+
+        public static SpanDto from(IntervalTree.Span span) {
+            SpanDto dto = new SpanDto();
+            dto.start = DateUtils.formatApiDateTime(span.start, ZoneId.systemDefault());
+            dto.end = DateUtils.formatApiDateTime(span.end, ZoneId.systemDefault());
+            return dto;
+        }
     }
 
     public static class EventResponseDto {
@@ -244,20 +419,44 @@ public class SimpleHttpServer {
         public String title;
         public String description;
         public String eventTime;
+        public String endTime;
+        public String zoneId;
         public String priority;
         public boolean isRecurring;
         public String category;
+        public List<Integer> reminderOffsets;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public List<String> conflicts; // Only set when a new event was posted with onConflict=flag
 
         public EventResponseDto(String id, String title, String description,
-                                String eventTime, String priority, boolean isRecurring,
-                                String category) {
+                                String eventTime, String endTime, String zoneId, String priority,
+                                boolean isRecurring, String category) {
             this.id = id;
             this.title = title;
             this.description = description;
             this.eventTime = eventTime;
+            this.endTime = endTime;
+            this.zoneId = zoneId;
             this.priority = priority;
             this.isRecurring = isRecurring;
             this.category = category;
         }
+
+        public static EventResponseDto from(Event event) {
+            ZoneId zone = DateUtils.zoneOf(event.getZoneId());
+            EventResponseDto dto = new EventResponseDto(
+                event.getId(),
+                event.getTitle(),
+                event.getDescription(),
+                DateUtils.formatApiDateTime(event.getEventInstant(), zone),
+                event.getEndInstant() != null ? DateUtils.formatApiDateTime(event.getEndInstant(), zone) : null,
+                event.getZoneId(),
+                event.getPriority().name(),
+                event.isRecurring(),
+                event.getCategory()
+            );
+            dto.reminderOffsets = event.getReminderOffsets();
+            return dto;
+        }
     }
 }
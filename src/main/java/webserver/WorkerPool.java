@@ -0,0 +1,35 @@
+package webserver;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded thread pool for the engines' request handlers. At most {@code maxThreads} handlers run
+ * at once and a fixed multiple of that may wait; beyond that {@code execute} throws
+ * {@link java.util.concurrent.RejectedExecutionException}, so overload turns into refused
+ * requests instead of an ever-growing number of threads.
+ */
+final class WorkerPool {
+    static final int DEFAULT_MAX_THREADS = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+    private static final long IDLE_SECONDS = 60;
+    // Queued requests are mostly shed quickly by AdmissionControl, so the queue can be deep
+    private static final int QUEUED_PER_THREAD = 16;
+
+    private WorkerPool() {
+    }
+
+    static ThreadPoolExecutor create(String name, int maxThreads) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("Worker pool needs at least one thread");
+        }
+        AtomicInteger created = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, IDLE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxThreads * QUEUED_PER_THREAD),
+                runnable -> new Thread(runnable, name + "-" + created.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
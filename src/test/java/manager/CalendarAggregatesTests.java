@@ -0,0 +1,76 @@
+package manager;
+
+import event.Event;
+import event.EventPriority;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class CalendarAggregatesTests {
+
+    private static Event event(String title, LocalDateTime time, EventPriority priority, String category) {
+        return new Event(title, "", time, priority, false, category);
+    }
+
+    @Test
+    void testDailyCountsByPriorityAndCategory() {
+        CalendarAggregates aggregates = new CalendarAggregates();
+        aggregates.add(event("A", LocalDateTime.of(2025, 8, 14, 9, 0), EventPriority.HIGH, "Work"));
+        aggregates.add(event("B", LocalDateTime.of(2025, 8, 14, 18, 0), EventPriority.LOW, "Personal"));
+        aggregates.add(event("C", LocalDateTime.of(2025, 8, 16, 9, 0), EventPriority.HIGH, "Work"));
+
+        List<CalendarAggregates.Summary> days = aggregates.summarize(
+                CalendarAggregates.Granularity.DAY, LocalDate.of(2025, 8, 1), LocalDate.of(2025, 8, 31));
+
+        assertEquals(2, days.size());
+        assertEquals("2025-08-14", days.get(0).start);
+        assertEquals(2, days.get(0).total);
+        assertEquals(1L, days.get(0).byPriority.get("HIGH"));
+        assertEquals(1L, days.get(0).byCategory.get("Personal"));
+        assertEquals("2025-08-16", days.get(1).start);
+    }
+
+    @Test
+    void testWeekAndMonthBuckets() {
+        CalendarAggregates aggregates = new CalendarAggregates();
+        aggregates.add(event("A", LocalDateTime.of(2025, 8, 14, 9, 0), EventPriority.HIGH, "Work"));
+        aggregates.add(event("B", LocalDateTime.of(2025, 8, 17, 9, 0), EventPriority.MEDIUM, "Work"));
+        aggregates.add(event("C", LocalDateTime.of(2025, 9, 1, 9, 0), EventPriority.MEDIUM, "Work"));
+
+        List<CalendarAggregates.Summary> weeks = aggregates.summarize(
+                CalendarAggregates.Granularity.WEEK, LocalDate.of(2025, 8, 1), LocalDate.of(2025, 9, 30));
+        assertEquals(2, weeks.size());
+        assertEquals("2025-08-11", weeks.get(0).start);
+        assertEquals(2, weeks.get(0).total);
+
+        List<CalendarAggregates.Summary> months = aggregates.summarize(
+                CalendarAggregates.Granularity.MONTH, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+        assertEquals(2, months.size());
+        assertEquals("2025-08-01", months.get(0).start);
+        assertEquals(2, months.get(0).total);
+    }
+
+    @Test
+    void testRemoveAndNotify() {
+        CalendarAggregates aggregates = new CalendarAggregates();
+        Event a = event("A", LocalDateTime.of(2025, 8, 14, 9, 0), EventPriority.HIGH, "Work");
+        Event b = event("B", LocalDateTime.of(2025, 8, 14, 10, 0), EventPriority.HIGH, "Work");
+        aggregates.add(a);
+        aggregates.add(b);
+
+        a.setNotified(true);
+        aggregates.markNotified(a);
+        aggregates.remove(b);
+
+        List<CalendarAggregates.Summary> days = aggregates.summarize(
+                CalendarAggregates.Granularity.DAY, LocalDate.of(2025, 8, 14), LocalDate.of(2025, 8, 14));
+        assertEquals(1, days.get(0).total);
+        assertEquals(1, days.get(0).notified);
+
+        aggregates.remove(a);
+        assertTrue(aggregates.summarize(
+                CalendarAggregates.Granularity.DAY, LocalDate.of(2025, 8, 14), LocalDate.of(2025, 8, 14)).isEmpty());
+    }
+}
@@ -0,0 +1,169 @@
+package manager;
+
+import event.Event;
+import event.EventPriority;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class EventArchiveTests {
+
+    @TempDir
+    Path dir;
+
+    private ReminderManager newManager() {
+        return new ReminderManager(dir.resolve("events.json").toFile(), new EventArchive(dir.resolve("archive").toFile()));
+    }
+
+    private static Event event(String title, Instant time, boolean recurring) {
+        return new Event(title, "", time, "UTC", EventPriority.MEDIUM, recurring, "Work");
+    }
+
+    @Test
+    void testPastEventsMoveToArchive() throws Exception {
+        Instant now = Instant.parse("2025-09-01T00:00:00Z");
+        ReminderManager manager = newManager();
+        manager.addEvent(event("Old", now.minus(40, ChronoUnit.DAYS), false));
+        manager.addEvent(event("Standup", now.minus(40, ChronoUnit.DAYS), true));
+        manager.addEvent(event("Recent", now.minus(2, ChronoUnit.DAYS), false));
+        manager.addEvent(event("Upcoming", now.plus(1, ChronoUnit.DAYS), false));
+
+        assertEquals(2, manager.archivePastEvents(now.minus(1, ChronoUnit.DAYS)));
+
+        List<Event> live = manager.getAllEvents();
+        assertEquals(2, live.size());
+        assertTrue(live.stream().anyMatch(e -> e.getTitle().equals("Standup")));
+        assertTrue(live.stream().anyMatch(e -> e.getTitle().equals("Upcoming")));
+
+        List<Event> history = manager.getEventsBetween(now.minus(60, ChronoUnit.DAYS), now);
+        assertEquals(Set.of("Old", "Standup", "Recent"),
+                history.stream().map(Event::getTitle).collect(Collectors.toSet()));
+        assertEquals(3, history.size());
+    }
+
+    @Test
+    void testArchiveSurvivesRestart() throws Exception {
+        Instant now = Instant.parse("2025-09-01T00:00:00Z");
+        ReminderManager manager = newManager();
+        for (int i = 0; i < 600; i++) {
+            manager.addEvent(event("Old " + i, now.minus(90, ChronoUnit.DAYS).plus(i, ChronoUnit.HOURS), false));
+        }
+        assertEquals(600, manager.archivePastEvents(now));
+
+        ReminderManager reloaded = newManager();
+        assertTrue(reloaded.getAllEvents().isEmpty());
+
+        Instant from = now.minus(90, ChronoUnit.DAYS).plus(300, ChronoUnit.HOURS);
+        List<Event> window = reloaded.getEventsBetween(from, from.plus(10, ChronoUnit.HOURS));
+        assertEquals(10, window.size());
+        assertEquals("Old 300", window.get(0).getTitle());
+
+        LocalDate day = LocalDate.of(2025, 6, 3);
+        long archivedThatDay = reloaded.getCalendarSummary(CalendarAggregates.Granularity.DAY, day, day)
+                .stream().mapToLong(summary -> summary.total).sum();
+        assertEquals(24, archivedThatDay);
+    }
+
+    @Test
+    void testNothingToArchive() {
+        ReminderManager manager = newManager();
+        manager.addEvent(event("Upcoming", Instant.parse("2030-01-01T00:00:00Z"), false));
+        assertEquals(0, manager.archivePastEvents(Instant.parse("2025-01-01T00:00:00Z")));
+        assertFalse(new File(dir.toFile(), "archive").exists());
+    }
+
+    @Test
+    void testEventLeftInBothTiersIsCountedOnce() throws Exception {
+        Instant now = Instant.parse("2025-09-01T00:00:00Z");
+        EventArchive archive = new EventArchive(dir.resolve("archive").toFile());
+        ReminderManager manager = new ReminderManager(dir.resolve("events.json").toFile(), archive);
+        Event old = event("Old", now.minus(40, ChronoUnit.DAYS), false);
+        manager.addEvent(old);
+        // As if the process died after archiving but before saving the live set
+        archive.append(List.of(old));
+
+        LocalDate day = LocalDate.of(2025, 7, 23);
+        ReminderManager restarted = newManager();
+        assertTrue(restarted.getAllEvents().isEmpty());
+        assertEquals(1, restarted.getCalendarSummary(CalendarAggregates.Granularity.DAY, day, day).get(0).total);
+
+        // Archiving the stale live copy drops it without taking a second copy
+        assertEquals(1, manager.archivePastEvents(now));
+        assertTrue(manager.getAllEvents().isEmpty());
+        assertEquals(1, archive.size());
+        assertEquals(1, newManager().getCalendarSummary(CalendarAggregates.Granularity.DAY, day, day).get(0).total);
+    }
+
+    @Test
+    void testOngoingEventsStayLive() throws Exception {
+        Instant now = Instant.parse("2025-09-01T00:00:00Z");
+        ReminderManager manager = newManager();
+        Event conference = new Event("Conference", "", now.minus(3, ChronoUnit.DAYS), now.plus(1, ChronoUnit.DAYS),
+                "UTC", EventPriority.HIGH, false, "Work");
+        manager.addEvent(conference);
+        manager.addEvent(new Event("Workshop", "", now.minus(3, ChronoUnit.DAYS), now.minus(2, ChronoUnit.DAYS),
+                "UTC", EventPriority.LOW, false, "Work"));
+
+        assertEquals(1, manager.archivePastEvents(now.minus(1, ChronoUnit.DAYS)));
+        assertEquals(List.of(conference), manager.getAllEvents());
+        assertEquals(List.of(conference), manager.findConflicts(now, now.plus(1, ChronoUnit.HOURS)));
+        assertEquals(1, manager.getBusy(now, now.plus(1, ChronoUnit.HOURS)).size());
+    }
+
+    @Test
+    void testUnreadableIndexKeepsEventsLiveAndSegmentsIntact() throws Exception {
+        Instant now = Instant.parse("2025-09-01T00:00:00Z");
+        ReminderManager manager = newManager();
+        for (int i = 0; i < 5; i++) {
+            manager.addEvent(event("Old " + i, now.minus(40, ChronoUnit.DAYS).plus(i, ChronoUnit.HOURS), false));
+        }
+        assertEquals(5, manager.archivePastEvents(now));
+        Path index = dir.resolve("archive").resolve("index.json");
+        byte[] saved = Files.readAllBytes(index);
+
+        Files.writeString(index, "[{\"partition\":");
+        ReminderManager broken = newManager();
+        broken.addEvent(event("Late", now.minus(40, ChronoUnit.DAYS), false));
+        assertEquals(0, broken.archivePastEvents(now));
+        assertEquals(1, broken.getAllEvents().size());
+
+        // A missing index starts a fresh archive, but never reuses an existing segment name
+        Files.delete(index);
+        ReminderManager fresh = newManager();
+        fresh.addEvent(event("Later", now.minus(40, ChronoUnit.DAYS), false));
+        assertEquals(2, fresh.archivePastEvents(now)); // With "Late", still live from the last run
+        Files.write(index, saved);
+        assertEquals(5, newManager().getEventsBetween(now.minus(60, ChronoUnit.DAYS), now).size());
+    }
+
+    @Test
+    void testSmallRunsAreMergedIntoOneSegmentPerMonth() throws Exception {
+        EventArchive archive = new EventArchive(dir.resolve("archive").toFile());
+        Instant july = Instant.parse("2025-07-01T00:00:00Z");
+        Instant june = Instant.parse("2025-06-01T00:00:00Z");
+        for (int hour = 0; hour < 48; hour++) {
+            archive.append(new ArrayList<>(List.of(
+                    event("July " + hour, july.plus(hour, ChronoUnit.HOURS), false),
+                    event("June " + hour, june.plus(hour, ChronoUnit.HOURS), false))));
+        }
+
+        assertEquals(96, archive.size());
+        assertEquals(1, dir.resolve("archive/2025-07").toFile().list().length);
+        assertEquals(1, dir.resolve("archive/2025-06").toFile().list().length);
+        EventArchive reopened = new EventArchive(dir.resolve("archive").toFile());
+        List<Event> window = reopened.findBetween(july.plus(10, ChronoUnit.HOURS), july.plus(20, ChronoUnit.HOURS));
+        assertEquals(10, window.size());
+        assertEquals("July 10", window.get(0).getTitle());
+        assertEquals(48, reopened.findBetween(june, july).size());
+    }
+}
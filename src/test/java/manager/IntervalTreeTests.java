@@ -0,0 +1,93 @@
+package manager;
+
+import event.Event;
+import event.EventPriority;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+class IntervalTreeTests {
+    private static final Instant BASE = Instant.parse("2025-08-14T09:00:00Z");
+
+    private static Event event(String title, int startMinute, Integer minutes) {
+        Instant start = BASE.plus(Duration.ofMinutes(startMinute));
+        Instant end = minutes != null ? start.plus(Duration.ofMinutes(minutes)) : null;
+        return new Event(title, "", start, end, null, EventPriority.MEDIUM, false, "Work");
+    }
+
+    private static long minute(int minute) {
+        return BASE.plus(Duration.ofMinutes(minute)).toEpochMilli();
+    }
+
+    @Test
+    void testFindOverlappingMatchesLinearScan() {
+        IntervalTree tree = new IntervalTree();
+        List<Event> events = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Event event = event("E" + i, random.nextInt(10_000), random.nextBoolean() ? random.nextInt(240) : null);
+            events.add(event);
+            tree.insert(event);
+        }
+        for (int i = 0; i < 100; i++) {
+            Event removed = events.remove(random.nextInt(events.size()));
+            assertTrue(tree.remove(removed));
+        }
+        assertEquals(400, tree.size());
+
+        for (int i = 0; i < 200; i++) {
+            long from = minute(random.nextInt(10_000));
+            long to = from + Duration.ofMinutes(1 + random.nextInt(300)).toMillis();
+            List<String> expected = events.stream()
+                    .filter(e -> IntervalTree.startOf(e) < to && IntervalTree.endOf(e) > from)
+                    .map(Event::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+            List<String> actual = tree.findOverlapping(from, to).stream()
+                    .map(Event::getId)
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testTouchingIntervalsDoNotOverlap() {
+        IntervalTree tree = new IntervalTree();
+        Event morning = event("Morning", 0, 60);
+        Event reminder = event("Reminder", 60, null);
+        tree.insert(morning);
+        tree.insert(reminder);
+
+        assertEquals(List.of(morning), tree.findOverlapping(minute(30), minute(60)));
+        assertEquals(List.of(reminder), tree.findOverlapping(minute(60), minute(90)));
+    }
+
+    @Test
+    void testBusyIsMergedAndFreeFillsTheGaps() {
+        IntervalTree tree = new IntervalTree();
+        tree.insert(event("A", 0, 60));
+        tree.insert(event("B", 30, 60));
+        tree.insert(event("Reminder", 100, null));
+        tree.insert(event("C", 120, 30));
+
+        List<IntervalTree.Span> busy = tree.findBusy(minute(15), minute(180));
+        assertEquals(2, busy.size());
+        assertEquals(minute(15), busy.get(0).start.toEpochMilli());
+        assertEquals(minute(90), busy.get(0).end.toEpochMilli());
+        assertEquals(minute(120), busy.get(1).start.toEpochMilli());
+        assertEquals(minute(150), busy.get(1).end.toEpochMilli());
+
+        List<IntervalTree.Span> free = IntervalTree.findFree(busy, minute(15), minute(180));
+        assertEquals(2, free.size());
+        assertEquals(minute(90), free.get(0).start.toEpochMilli());
+        assertEquals(minute(120), free.get(0).end.toEpochMilli());
+        assertEquals(minute(150), free.get(1).start.toEpochMilli());
+        assertEquals(minute(180), free.get(1).end.toEpochMilli());
+    }
+}
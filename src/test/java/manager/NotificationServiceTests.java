@@ -0,0 +1,170 @@
+package manager;
+
+import event.Event;
+import event.EventPriority;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class NotificationServiceTests {
+    private static final Instant START = Instant.parse("2030-01-01T00:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    private static Event event(String title, Instant time) {
+        return new Event(title, "", time, null, null, EventPriority.MEDIUM, false, "Work");
+    }
+
+    @Test
+    void testEachEventIsNotifiedOnceWithinTheLeadTime() {
+        ReminderManager manager = ReminderManager.inMemory();
+        SimulatedScheduler scheduler = new SimulatedScheduler(START);
+        List<String> fired = new ArrayList<>();
+        List<Instant> firedAt = new ArrayList<>();
+        NotificationService service = new NotificationService(manager, scheduler, reminder -> {
+            fired.add(reminder.event.getTitle());
+            firedAt.add(scheduler.clock().instant());
+        });
+        manager.addEvent(event("Standup", START.plus(Duration.ofMinutes(60))));
+        manager.addEvent(event("Lunch", START.plus(Duration.ofHours(3))));
+        service.start();
+
+        scheduler.advanceBy(Duration.ofMinutes(50));
+        assertEquals(List.of("Standup"), fired);
+        assertEquals(START.plus(Duration.ofMinutes(45)), firedAt.get(0));
+
+        scheduler.advanceBy(Duration.ofHours(5));
+        assertEquals(List.of("Standup", "Lunch"), fired);
+        assertTrue(manager.getAllEvents().stream().allMatch(Event::isNotified));
+    }
+
+    @Test
+    void testRemovedEventsAreNotNotified() {
+        ReminderManager manager = ReminderManager.inMemory();
+        SimulatedScheduler scheduler = new SimulatedScheduler(START);
+        List<String> fired = new ArrayList<>();
+        NotificationService service = new NotificationService(manager, scheduler, reminder -> fired.add(reminder.event.getTitle()));
+        Event cancelled = event("Cancelled", START.plus(Duration.ofHours(1)));
+        manager.addEvent(cancelled);
+        manager.addEvent(event("Kept", START.plus(Duration.ofHours(1))));
+        service.start();
+
+        manager.removeEvent(cancelled.getId());
+        scheduler.advanceBy(Duration.ofHours(2));
+        assertEquals(List.of("Kept"), fired);
+    }
+
+    @Test
+    void testStopCancelsTheCheck() {
+        ReminderManager manager = ReminderManager.inMemory();
+        SimulatedScheduler scheduler = new SimulatedScheduler(START);
+        List<String> fired = new ArrayList<>();
+        NotificationService service = new NotificationService(manager, scheduler, reminder -> fired.add(reminder.event.getTitle()));
+        manager.addEvent(event("Later", START.plus(Duration.ofHours(1))));
+        service.start();
+        service.stop();
+
+        assertEquals(0, scheduler.advanceBy(Duration.ofHours(2)));
+        assertTrue(fired.isEmpty());
+    }
+
+    @Test
+    void testReusedHandlesIgnoreTheirPreviousEventsTriggers() {
+        ReminderManager manager = ReminderManager.inMemory();
+        SimulatedScheduler scheduler = new SimulatedScheduler(START);
+        List<String> fired = new ArrayList<>();
+        NotificationService service = new NotificationService(manager, scheduler, reminder -> fired.add(reminder.event.getTitle()));
+        // Enough churn to reuse every handle and to drop the stale triggers in between
+        for (int i = 0; i < 5000; i++) {
+            Event churn = event("Churn " + i, START.plus(Duration.ofHours(1)));
+            manager.addEvent(churn);
+            manager.removeEvent(churn.getId());
+        }
+        manager.addEvent(event("Later", START.plus(Duration.ofHours(3))));
+        service.start();
+
+        scheduler.advanceBy(Duration.ofHours(2));
+        assertTrue(fired.isEmpty());
+        scheduler.advanceBy(Duration.ofHours(1));
+        assertEquals(List.of("Later"), fired);
+    }
+
+    @Test
+    void testEachReminderOffsetFiresOnceAcrossRestarts() {
+        File file = dir.resolve("events.json").toFile();
+        Event review = event("Review", START.plus(Duration.ofDays(2)));
+        review.setReminderOffsets(List.of(5, 1440, 60, 5));
+        assertEquals(List.of(1440, 60, 5), review.getReminderOffsets());
+
+        List<Integer> fired = new ArrayList<>();
+        ReminderManager manager = new ReminderManager(file, new EventArchive(dir.resolve("archive").toFile()));
+        manager.addEvent(review);
+        SimulatedScheduler scheduler = new SimulatedScheduler(START);
+        new NotificationService(manager, scheduler, reminder -> fired.add(reminder.offsetMinutes)).start();
+        scheduler.advanceTo(START.plus(Duration.ofDays(1)).plus(Duration.ofMinutes(1)));
+        assertEquals(List.of(1440), fired);
+
+        // Restart: the day-before reminder is not repeated, the other two still fire
+        ReminderManager restarted = new ReminderManager(file, new EventArchive(dir.resolve("archive").toFile()));
+        scheduler = new SimulatedScheduler(START.plus(Duration.ofDays(1)).plus(Duration.ofMinutes(1)));
+        new NotificationService(restarted, scheduler, reminder -> fired.add(reminder.offsetMinutes)).start();
+        scheduler.advanceTo(START.plus(Duration.ofDays(3)));
+        assertEquals(List.of(1440, 60, 5), fired);
+        assertTrue(restarted.getAllEvents().get(0).isNotified());
+
+        // And again, now from the compacted snapshot
+        ReminderManager again = new ReminderManager(file, new EventArchive(dir.resolve("archive").toFile()));
+        assertTrue(again.takeDueReminders(START.plus(Duration.ofDays(3))).isEmpty());
+        assertTrue(again.getAllEvents().get(0).isNotified());
+    }
+
+    @Test
+    void testUnreadableDataFileDoesNotEraseDeliveredState() throws Exception {
+        File file = dir.resolve("events.json").toFile();
+        ReminderManager manager = new ReminderManager(file, new EventArchive(dir.resolve("archive").toFile()));
+        manager.addEvent(event("Review", START.plus(Duration.ofHours(1))));
+        assertEquals(1, manager.takeDueReminders(START.plus(Duration.ofHours(1))).size());
+        byte[] saved = Files.readAllBytes(file.toPath());
+
+        // A restart that cannot read the data file, then one after it has been restored
+        Files.writeString(file.toPath(), "[{\"id\":");
+        ReminderManager broken = new ReminderManager(file, new EventArchive(dir.resolve("archive").toFile()));
+        assertTrue(broken.getAllEvents().isEmpty());
+        Files.write(file.toPath(), saved);
+
+        ReminderManager restored = new ReminderManager(file, new EventArchive(dir.resolve("archive").toFile()));
+        assertTrue(restored.takeDueReminders(START.plus(Duration.ofHours(2))).isEmpty());
+        assertTrue(restored.getAllEvents().get(0).isNotified());
+    }
+
+    @Test
+    void testDamagedSnapshotKeepsTheJournal() throws Exception {
+        File file = dir.resolve("events.json").toFile();
+        Event review = event("Review", START.plus(Duration.ofHours(2)));
+        review.setReminderOffsets(List.of(60, 5));
+        ReminderManager manager = new ReminderManager(file, null);
+        manager.addEvent(review);
+        assertEquals(1, manager.takeDueReminders(START.plus(Duration.ofHours(1))).size());
+
+        // The restart folds the first delivery into the snapshot; the second is journalled
+        ReminderManager restarted = new ReminderManager(file, null);
+        assertEquals(1, restarted.takeDueReminders(START.plus(Duration.ofMinutes(115))).size());
+        Path snapshot = dir.resolve("deliveries.snapshot");
+        byte[] damaged = Arrays.copyOf(Files.readAllBytes(snapshot), (int) Files.size(snapshot) - 3);
+        Files.write(snapshot, damaged);
+
+        ReminderManager again = new ReminderManager(file, null);
+        assertTrue(again.takeDueReminders(START.plus(Duration.ofHours(3))).isEmpty());
+        assertArrayEquals(damaged, Files.readAllBytes(snapshot));
+        assertTrue(Files.exists(dir.resolve("deliveries.journal")));
+    }
+}
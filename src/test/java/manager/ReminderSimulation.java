@@ -0,0 +1,179 @@
+package manager;
+
+import event.Event;
+import event.EventPriority;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a synthetic reminder workload through {@link NotificationService} on a
+ * {@link SimulatedScheduler}, so days of reminders run in seconds. The workload mixes one-off
+ * events, daily recurring series, a burst of co-due events at 09:00 every day, and a trickle of
+ * events added while the simulation runs; each event gets one, two or three reminder offsets.
+ * Reports fire-time skew of every reminder against its ideal fire time (event time minus offset,
+ * or the time it was added if later), missed and duplicate reminders, and the scheduler
+ * thread's CPU per simulated hour.
+ *
+ * <pre>gradle simulate --args="[events] [days] [addsPerMinute] [seed]"</pre>
+ */
+public class ReminderSimulation {
+    private static final Instant START = Instant.parse("2030-01-01T00:00:00Z");
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final List<List<Integer>> OFFSETS = List.of(List.of(15), List.of(60, 5), List.of(1440, 60, 5));
+    private static final int MAX_OFFSETS = 3;
+
+    private final Random random;
+    private final ReminderManager manager = ReminderManager.inMemory();
+    private final SimulatedScheduler scheduler = new SimulatedScheduler(START);
+    private final Map<Event, Integer> index = new IdentityHashMap<>();
+    // Per reminder, at event index * MAX_OFFSETS + offset index; idealFire is 0 for unused slots
+    private long[] idealFire = new long[1024 * MAX_OFFSETS];
+    private long[] firedAt = new long[1024 * MAX_OFFSETS];
+    private byte[] fireCount = new byte[1024 * MAX_OFFSETS];
+    private int tracked;
+    private long workloadCpuNanos; // CPU spent adding live events, excluded from the scheduler's
+
+    private ReminderSimulation(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 7;
+        int addsPerMinute = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        new ReminderSimulation(seed).run(events, days, addsPerMinute);
+    }
+
+    private void run(int events, int days, int addsPerMinute) {
+        Duration span = Duration.ofDays(days);
+        long loadStart = System.nanoTime();
+        int series = events / 10 / days;
+        int burstPerDay = events / 10 / days;
+        int oneOff = events - series * days - burstPerDay * days;
+        for (int i = 0; i < oneOff; i++) {
+            add(START.plusSeconds((long) (random.nextDouble() * span.getSeconds())), false, START);
+        }
+        for (int i = 0; i < series; i++) {
+            long secondOfDay = random.nextInt(24 * 3600);
+            for (int day = 0; day < days; day++) {
+                add(START.plus(Duration.ofDays(day)).plusSeconds(secondOfDay), true, START);
+            }
+        }
+        for (int day = 0; day < days; day++) {
+            Instant nine = START.plus(Duration.ofDays(day)).plus(Duration.ofHours(9));
+            for (int i = 0; i < burstPerDay; i++) {
+                add(nine, false, START);
+            }
+        }
+        System.out.printf("Loaded %,d events (%,d one-off, %,d series x %d days, %,d at 09:00 daily) in %d ms%n",
+                tracked, oneOff, series, days, burstPerDay, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart));
+
+        // Live traffic: events due within the next two hours, so some reminders are due on arrival
+        scheduler.scheduleAtFixedRate(() -> {
+            long cpuStart = THREADS.getCurrentThreadCpuTime();
+            Instant now = scheduler.clock().instant();
+            for (int i = 0; i < addsPerMinute; i++) {
+                add(now.plusSeconds(random.nextInt(7200)), false, now);
+            }
+            workloadCpuNanos += THREADS.getCurrentThreadCpuTime() - cpuStart;
+        }, Duration.ofSeconds(30), Duration.ofMinutes(1));
+
+        NotificationService service = new NotificationService(manager, scheduler, this::record);
+        service.start();
+
+        int hours = days * 24;
+        long[] cpuPerHour = new long[hours];
+        long wallStart = System.nanoTime();
+        for (int hour = 0; hour < hours; hour++) {
+            long workloadBefore = workloadCpuNanos;
+            long cpuStart = THREADS.getCurrentThreadCpuTime();
+            scheduler.advanceTo(START.plus(Duration.ofHours(hour + 1)));
+            cpuPerHour[hour] = THREADS.getCurrentThreadCpuTime() - cpuStart - (workloadCpuNanos - workloadBefore);
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        service.stop();
+
+        report(START.plus(span), days, wallNanos, cpuPerHour);
+    }
+
+    private void add(Instant time, boolean recurring, Instant addedAt) {
+        EventPriority priority = EventPriority.values()[random.nextInt(3)];
+        Event event = new Event("Event " + tracked, "", time, null, null, priority, recurring, "Simulated");
+        List<Integer> offsets = OFFSETS.get(random.nextInt(OFFSETS.size()));
+        event.setReminderOffsets(offsets);
+        if ((tracked + 1) * MAX_OFFSETS > idealFire.length) {
+            idealFire = Arrays.copyOf(idealFire, idealFire.length * 2);
+            firedAt = Arrays.copyOf(firedAt, firedAt.length * 2);
+            fireCount = Arrays.copyOf(fireCount, fireCount.length * 2);
+        }
+        for (int i = 0; i < offsets.size(); i++) {
+            Instant ideal = time.minus(Duration.ofMinutes(offsets.get(i)));
+            idealFire[tracked * MAX_OFFSETS + i] = (ideal.isAfter(addedAt) ? ideal : addedAt).toEpochMilli();
+        }
+        index.put(event, tracked++);
+        manager.addEvent(event);
+    }
+
+    private void record(ReminderManager.Reminder reminder) {
+        int i = index.get(reminder.event) * MAX_OFFSETS
+                + reminder.event.getReminderOffsets().indexOf(reminder.offsetMinutes);
+        if (fireCount[i]++ == 0) {
+            firedAt[i] = scheduler.clock().millis();
+        }
+    }
+
+    private void report(Instant end, int days, long wallNanos, long[] cpuPerHour) {
+        // Anything ideally due a full check period before the end has had a chance to fire
+        long deadline = end.minus(NotificationService.getCheckPeriod()).toEpochMilli();
+        long[] skews = new long[tracked * MAX_OFFSETS];
+        int fired = 0;
+        int expected = 0;
+        int missed = 0;
+        int duplicates = 0;
+        for (int i = 0; i < tracked * MAX_OFFSETS; i++) {
+            if (idealFire[i] == 0) {
+                continue;
+            }
+            if (fireCount[i] > 0) {
+                skews[fired++] = firedAt[i] - idealFire[i];
+            }
+            if (fireCount[i] > 1) {
+                duplicates++;
+            }
+            if (idealFire[i] <= deadline) {
+                expected++;
+                if (fireCount[i] == 0) {
+                    missed++;
+                }
+            }
+        }
+        skews = Arrays.copyOf(skews, fired);
+        Arrays.sort(skews);
+        long[] cpu = cpuPerHour.clone();
+        Arrays.sort(cpu);
+        double wallSeconds = wallNanos / 1e9;
+
+        System.out.printf("Simulated %d days in %.2f s (%.0fx real time)%n",
+                days, wallSeconds, days * 86400 / Math.max(wallSeconds, 1e-9));
+        System.out.printf("Reminders: %,d fired, %,d expected, %,d missed, %,d duplicated%n",
+                fired, expected, missed, duplicates);
+        System.out.printf("Fire-time skew: p50 %d ms, p99 %d ms, max %d ms, min %d ms%n",
+                percentile(skews, 0.50), percentile(skews, 0.99), percentile(skews, 1.0), percentile(skews, 0.0));
+        System.out.printf("Scheduler CPU per simulated hour: mean %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                Arrays.stream(cpu).average().orElse(0) / 1e6, percentile(cpu, 0.99) / 1e6, percentile(cpu, 1.0) / 1e6);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) ((sorted.length - 1) * p)];
+    }
+}
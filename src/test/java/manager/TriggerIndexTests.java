@@ -0,0 +1,61 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+
+class TriggerIndexTests {
+
+    @Test
+    void testPacksHandleGenerationAndOffsetIndex() {
+        long trigger = TriggerIndex.pack(Integer.MAX_VALUE, TriggerIndex.GENERATIONS - 1, 63);
+        assertEquals(Integer.MAX_VALUE, TriggerIndex.handleOf(trigger));
+        assertEquals(TriggerIndex.GENERATIONS - 1, TriggerIndex.generationOf(trigger));
+        assertEquals(63, TriggerIndex.offsetIndexOf(trigger));
+        assertEquals(0, TriggerIndex.generationOf(TriggerIndex.pack(255, TriggerIndex.GENERATIONS, 0)));
+    }
+
+    @Test
+    void testPollsInFireTimeOrder() {
+        TriggerIndex index = new TriggerIndex();
+        Random random = new Random(7);
+        long[] times = new long[10_000];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = random.nextInt(1000); // Plenty of co-due triggers
+            index.add(times[i], TriggerIndex.pack(i, 0, i % 3));
+        }
+        Arrays.sort(times);
+
+        long previousTrigger = -1;
+        for (int i = 0; i < times.length; i++) {
+            assertEquals(times[i], index.peekFireTime());
+            long trigger = index.peekTrigger();
+            if (i > 0 && times[i] == times[i - 1]) {
+                assertTrue(trigger > previousTrigger);
+            }
+            previousTrigger = trigger;
+            index.poll();
+        }
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    void testRetainIfKeepsFireTimeOrder() {
+        TriggerIndex index = new TriggerIndex();
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            index.add(random.nextInt(100_000), TriggerIndex.pack(i, 0, 0));
+        }
+        index.retainIf(trigger -> TriggerIndex.handleOf(trigger) % 3 == 0);
+
+        assertEquals(3334, index.size());
+        long previous = Long.MIN_VALUE;
+        while (!index.isEmpty()) {
+            assertEquals(0, TriggerIndex.handleOf(index.peekTrigger()) % 3);
+            assertTrue(index.peekFireTime() >= previous);
+            previous = index.peekFireTime();
+            index.poll();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class DateUtilsTests {
+
+    @Test
+    void testParseUtc() {
+        DateUtils.ZonedInstant parsed = DateUtils.tryParseApiDateTime("2025-08-14T17:56:00Z");
+        assertEquals(Instant.parse("2025-08-14T17:56:00Z"), parsed.instant);
+        assertEquals(ZoneOffset.UTC, parsed.zone);
+    }
+
+    @Test
+    void testParseOffsetAndFraction() {
+        DateUtils.ZonedInstant parsed = DateUtils.tryParseApiDateTime("2024-02-29T23:30:15.25+05:30");
+        assertEquals(Instant.parse("2024-02-29T18:00:15.250Z"), parsed.instant);
+        assertEquals(ZoneOffset.ofHoursMinutes(5, 30), parsed.zone);
+    }
+
+    @Test
+    void testParseRegion() {
+        DateUtils.ZonedInstant parsed = DateUtils.tryParseApiDateTime("2025-01-10T09:00[Europe/Paris]");
+        assertEquals(Instant.parse("2025-01-10T08:00:00Z"), parsed.instant);
+        assertEquals(ZoneId.of("Europe/Paris"), parsed.zone);
+    }
+
+    @Test
+    void testParseWithoutZoneUsesDefault() {
+        DateUtils.ZonedInstant parsed = DateUtils.tryParseApiDateTime("2025-08-14T17:56");
+        assertNull(parsed.zone);
+        assertEquals(LocalDateTime.of(2025, 8, 14, 17, 56).atZone(ZoneId.systemDefault()).toInstant(),
+                parsed.instant);
+
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        parsed = DateUtils.tryParseApiDateTime("2025-08-14T17:56", tokyo);
+        assertEquals(tokyo, parsed.zone);
+        assertEquals(Instant.parse("2025-08-14T08:56:00Z"), parsed.instant);
+    }
+
+    @Test
+    void testMalformedReturnsNull() {
+        assertNull(DateUtils.tryParseApiDateTime("2025-02-29T10:00"));
+        assertNull(DateUtils.tryParseApiDateTime("2025-08-14 17:56"));
+        assertNull(DateUtils.tryParseApiDateTime("2025-08-14T24:00"));
+        assertNull(DateUtils.tryParseApiDateTime("2025-08-14T17:56+25:00"));
+        assertNull(DateUtils.tryParseApiDateTime("2025-08-14T17:56[Nowhere/Town]"));
+        assertNull(DateUtils.tryParseApiDateTime("not a date"));
+    }
+
+    @Test
+    void testFormatMatchesJavaTime() {
+        Instant instant = Instant.parse("2025-08-14T17:56:00Z");
+        assertEquals("2025-08-14T17:56:00Z", DateUtils.formatApiDateTime(instant, ZoneOffset.UTC));
+        assertEquals("2025-08-14T19:56:00+02:00",
+                DateUtils.formatApiDateTime(instant, ZoneId.of("Europe/Paris")));
+        assertEquals("1969-12-31T23:59:59.5Z",
+                DateUtils.formatApiDateTime(Instant.ofEpochSecond(-1, 500_000_000), ZoneOffset.UTC));
+
+        Instant local = LocalDateTime.of(2025, 8, 14, 17, 56, 7, 1000).atZone(ZoneId.systemDefault()).toInstant();
+        assertEquals("2025-08-14T17:56:07.000001", DateUtils.formatApiDateTime(local, null));
+    }
+}
@@ -0,0 +1,182 @@
+package webserver;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of the jdk and nio engines on the same route table, over persistent
+ * connections, with and without pipelining. Latency is per round trip of a whole pipelined batch.
+ *
+ * <pre>gradle benchmark --args="[connections] [seconds] [pipelineDepth]"</pre>
+ */
+public class HttpEngineBenchmark {
+    private static final byte[] PAYLOAD = buildPayload();
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        System.out.printf("%d connections, %ds per run, %d bytes per response%n", connections, seconds, PAYLOAD.length);
+        System.out.printf("%-6s %-10s %12s %10s %10s%n", "engine", "pipeline", "req/s", "p50 us", "p99 us");
+        for (String engine : List.of("jdk", "nio")) {
+            for (int pipeline : new int[] {1, depth}) {
+                run(engine, connections, 1, pipeline); // Warm-up
+                Result result = run(engine, connections, seconds, pipeline);
+                System.out.printf("%-6s %-10d %12.0f %10d %10d%n", engine, pipeline, result.throughput,
+                        result.p50Micros, result.p99Micros);
+            }
+        }
+    }
+
+    private static Result run(String engineName, int connections, int seconds, int pipeline) throws Exception {
+        HttpEngine engine = HttpEngine.named(engineName);
+        Router router = new Router().add("/bench", request -> new HttpResponse(200, PAYLOAD)
+                .header("Content-Type", "application/json"));
+        engine.start(new InetSocketAddress("127.0.0.1", 0), router);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Client> clients = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                Client client = new Client(engine.getPort(), pipeline, deadline, done);
+                clients.add(client);
+                new Thread(client, "bench-client-" + i).start();
+            }
+            done.await();
+        } finally {
+            engine.stop();
+        }
+
+        long total = 0;
+        List<long[]> samples = new ArrayList<>();
+        for (Client client : clients) {
+            if (client.failure != null) {
+                throw client.failure;
+            }
+            total += client.completed;
+            samples.add(Arrays.copyOf(client.latencies, client.sampleCount));
+        }
+        long[] all = samples.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(total / (double) seconds, percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sorted[(int) ((sorted.length - 1) * p)]);
+    }
+
+    private static byte[] buildPayload() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 10; i++) {
+            json.append(i == 0 ? "" : ",")
+                .append("{\"id\":\"EVT-").append(i).append("\",\"title\":\"Event ").append(i)
+                .append("\",\"eventTime\":\"2025-08-14T17:56:00Z\",\"priority\":\"MEDIUM\",\"category\":\"Work\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Result {
+        private final double throughput;
+        private final long p50Micros;
+        private final long p99Micros;
+
+        private Result(double throughput, long p50Micros, long p99Micros) {
+            this.throughput = throughput;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+        }
+    }
+
+    /** One keep-alive connection sending batches of {@code pipeline} requests back to back. */
+    private static final class Client implements Runnable {
+        private static final byte[] REQUEST =
+                "GET /bench HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+        private final int port;
+        private final int pipeline;
+        private final long deadline;
+        private final CountDownLatch done;
+        private long[] latencies = new long[1 << 16];
+        private int sampleCount;
+        private long completed;
+        private Exception failure;
+
+        private Client(int port, int pipeline, long deadline, CountDownLatch done) {
+            this.port = port;
+            this.pipeline = pipeline;
+            this.deadline = deadline;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            byte[] batch = new byte[REQUEST.length * pipeline];
+            for (int i = 0; i < pipeline; i++) {
+                System.arraycopy(REQUEST, 0, batch, i * REQUEST.length, REQUEST.length);
+            }
+            try (Socket socket = new Socket("127.0.0.1", port)) {
+                socket.setTcpNoDelay(true);
+                OutputStream out = socket.getOutputStream();
+                InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    out.write(batch);
+                    out.flush();
+                    for (int i = 0; i < pipeline; i++) {
+                        readResponse(in);
+                    }
+                    record(System.nanoTime() - start);
+                    completed += pipeline;
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void record(long nanos) {
+            if (sampleCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[sampleCount++] = nanos;
+        }
+
+        private static void readResponse(InputStream in) throws IOException {
+            int contentLength = 0;
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new IOException("Connection closed mid-response");
+                }
+                if (b != '\n') {
+                    if (b != '\r') {
+                        line.append((char) b);
+                    }
+                    continue;
+                }
+                if (line.length() == 0) {
+                    break;
+                }
+                String header = line.toString();
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Integer.parseInt(header.substring(15).trim());
+                }
+                line.setLength(0);
+            }
+            in.skipNBytes(contentLength);
+        }
+    }
+}
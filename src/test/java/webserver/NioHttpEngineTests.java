@@ -0,0 +1,92 @@
+package webserver;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+class NioHttpEngineTests {
+
+    private static String exchange(int port, String requests) throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(requests.getBytes(StandardCharsets.ISO_8859_1));
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = in.read(chunk)) > 0) {
+                received.write(chunk, 0, n);
+            }
+            return received.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @Test
+    void testPipelinedResponsesKeepRequestOrder() throws Exception {
+        Router router = new Router()
+                .add("/slow", request -> {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return HttpResponse.json(200, "\"slow\"");
+                })
+                .add("/echo", request -> HttpResponse.json(200, "\"" + request.getBodyAsString() + "\""));
+        NioHttpEngine engine = new NioHttpEngine();
+        engine.start(new InetSocketAddress("127.0.0.1", 0), router);
+        try {
+            String response = exchange(engine.getPort(),
+                    "GET /slow HTTP/1.1\r\n\r\n"
+                    + "POST /echo HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello"
+                    + "GET /missing HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+            int slow = response.indexOf("\"slow\"");
+            int echo = response.indexOf("\"hello\"");
+            int missing = response.indexOf("404 Not Found");
+            assertTrue(slow > 0 && echo > slow && missing > echo, response);
+            assertTrue(response.endsWith("{\"error\":\"Not Found\"}"));
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void testMalformedRequestClosesConnection() throws Exception {
+        NioHttpEngine engine = new NioHttpEngine();
+        engine.start(new InetSocketAddress("127.0.0.1", 0), new Router());
+        try {
+            String response = exchange(engine.getPort(), "NONSENSE\r\n\r\n");
+            assertTrue(response.startsWith("HTTP/1.1 400 Bad Request"));
+            assertTrue(response.contains("Connection: close"));
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void testHandlerErrorStillAnswersInOrder() throws Exception {
+        Router router = new Router().add("/boom", request -> {
+            throw new AssertionError("boom");
+        });
+        NioHttpEngine engine = new NioHttpEngine();
+        engine.start(new InetSocketAddress("127.0.0.1", 0), router);
+        try {
+            String response = exchange(engine.getPort(),
+                    "GET /boom HTTP/1.1\r\n\r\n"
+                    + "GET /missing HTTP/1.1\r\nConnection: close\r\n\r\n");
+            assertTrue(response.startsWith("HTTP/1.1 500"), response);
+            assertTrue(response.indexOf("404 Not Found") > 0, response);
+
+            // The event loop is still serving
+            assertTrue(exchange(engine.getPort(), "GET /missing HTTP/1.1\r\nConnection: close\r\n\r\n")
+                    .startsWith("HTTP/1.1 404"));
+        } finally {
+            engine.stop();
+        }
+    }
+}
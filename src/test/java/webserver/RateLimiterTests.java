@@ -0,0 +1,61 @@
+package webserver;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class RateLimiterTests {
+
+    @Test
+    void testBurstThenRejected() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(3, 1.0, now::get);
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertTrue(wait > 0);
+        assertTrue(wait <= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void testRefillOverTime() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(1, 2.0, now::get);
+
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client") > 0);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, limiter.tryAcquire("client"));
+    }
+
+    @Test
+    void testClientsHaveSeparateBuckets() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(1, 1.0, now::get);
+
+        assertEquals(0, limiter.tryAcquire("ip:10.0.0.1"));
+        assertTrue(limiter.tryAcquire("ip:10.0.0.1") > 0);
+        assertEquals(0, limiter.tryAcquire("ip:10.0.0.2"));
+    }
+
+    @Test
+    void testRejectedPairChargesNeitherBucket() {
+        AtomicLong now = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(1, 1.0, now::get);
+
+        assertEquals(0, limiter.tryAcquire("token:abc"));
+        // The token is spent, so the address keeps its own token
+        assertTrue(limiter.tryAcquire("ip:10.0.0.1", "token:abc") > 0);
+        assertEquals(0, limiter.tryAcquire("ip:10.0.0.1"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limiter.tryAcquire("ip:10.0.0.1", "token:abc"));
+        assertTrue(limiter.tryAcquire("ip:10.0.0.1") > 0);
+        assertTrue(limiter.tryAcquire("token:abc") > 0);
+    }
+}
@@ -72,6 +72,13 @@ class EventService {
         }
     }
 
+    static async getSummary(granularity, from, to) {
+        const url = `${API_URL}/summary?granularity=${granularity}&from=${from}&to=${to}`;
+        const response = await fetch(url);
+        if (!response.ok) throw new Error('Failed to fetch event summary');
+        return await response.json();
+    }
+
     static async deleteEvent(id) {
         try {
             const response = await fetch(`${API_URL}/${id}`, { method: 'DELETE' });
@@ -84,8 +91,9 @@ class EventService {
     }
 }
 
-function formatDateTimeLocalToISO(dateTimeLocal) {
-    return dateTimeLocal + ":00Z";
+function browserTimeZone() {
+    // The server keeps the zone, so the event stays on the user's local day in calendar summaries
+    return Intl.DateTimeFormat().resolvedOptions().timeZone;
 }
 
 class EventRenderer {
@@ -158,14 +166,6 @@ class CalendarManager {
         const calendarEl = document.getElementById('calendar');
         if (!calendarEl) return;
 
-        const events = await EventService.getEventsByCategory(category);
-        const formattedEvents = events.map(event => ({
-            id: event.id,
-            title: event.title,
-            start: event.eventTime,
-            color: this.getPriorityColor(event.priority)
-        }));
-
         const calendar = new FullCalendar.Calendar(calendarEl, {
             initialView: 'dayGridMonth',
             headerToolbar: {
@@ -173,7 +173,18 @@ class CalendarManager {
                 center: 'title',
                 right: 'dayGridMonth,timeGridWeek,timeGridDay'
             },
-            events: formattedEvents,
+            // The same range fetches counts or events depending on the view, so never reuse a fetch
+            lazyFetching: false,
+            events: (fetchInfo, success, failure) => {
+                // The month grid only needs per-day counts; the time grids need the events themselves
+                const source = calendar.view.type === 'dayGridMonth'
+                    ? this.fetchDaySummaries(fetchInfo, category)
+                    : this.fetchEvents(category);
+                source.then(success).catch(error => {
+                    Toast.show('Error fetching events: ' + error.message, 'error');
+                    failure(error);
+                });
+            },
             eventClick: function(info) {
                 alert(`Event: ${info.event.title}\nDate: ${info.event.startStr}`);
             }
@@ -181,6 +192,53 @@ class CalendarManager {
         calendar.render();
     }
 
+    static async fetchEvents(category) {
+        const events = await EventService.getEventsByCategory(category);
+        return events.map(event => ({
+            id: event.id,
+            title: event.title,
+            start: event.eventTime,
+            end: event.endTime || undefined,
+            color: this.getPriorityColor(event.priority)
+        }));
+    }
+
+    static async fetchDaySummaries(fetchInfo, category) {
+        const lastDay = new Date(fetchInfo.end.getTime() - 1);
+        const summaries = await EventService.getSummary('day',
+            this.toDateString(fetchInfo.start), this.toDateString(lastDay));
+
+        // Per-priority counts for the selected category, summed over categories matching it case-insensitively
+        const prioritiesFor = day => category === 'all'
+            ? day.byPriority
+            : Object.entries(day.byCategoryAndPriority)
+                .filter(([name]) => name.toLowerCase() === category.toLowerCase())
+                .reduce((sum, [, counts]) => {
+                    Object.entries(counts).forEach(([p, n]) => { sum[p] = (sum[p] || 0) + n; });
+                    return sum;
+                }, {});
+        const countOf = priorities => Object.values(priorities).reduce((sum, n) => sum + n, 0);
+
+        return summaries
+            .filter(day => countOf(prioritiesFor(day)) > 0)
+            .map(day => {
+                const priorities = prioritiesFor(day);
+                const count = countOf(priorities);
+                const topPriority = ['HIGH', 'MEDIUM', 'LOW'].find(p => priorities[p] > 0);
+                return {
+                    title: `${count} event${count === 1 ? '' : 's'}`,
+                    start: day.start,
+                    allDay: true,
+                    color: this.getPriorityColor(topPriority || '')
+                };
+            });
+    }
+
+    static toDateString(date) {
+        const pad = n => String(n).padStart(2, '0');
+        return `${date.getFullYear()}-${pad(date.getMonth() + 1)}-${pad(date.getDate())}`;
+    }
+
     static getPriorityColor(priority) {
         switch (priority.toUpperCase()) {
             case 'HIGH': return '#dc2626';
@@ -256,7 +314,8 @@ class EventManager {
         const eventData = {
             title: form.title.value.trim(),
             description: form.description.value.trim(),
-            eventTime: formatDateTimeLocalToISO(form.dateTime.value),
+            eventTime: form.dateTime.value, // datetime-local: wall-clock time in zoneId
+            zoneId: browserTimeZone(),
             priority: form.priority.value,
             isRecurring: form.recurring.checked,
             category: form.category.value